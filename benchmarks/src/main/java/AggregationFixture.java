@@ -0,0 +1,82 @@
+import bench.Fixture;
+import bench.Workload;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+// Entries in memory (LedgerColumns) for AggregationBenchmark
+public class AggregationFixture implements Fixture {
+
+    @Override
+    public Workload workload(String name, int rows) {
+        LedgerColumns entries = entries(rows);
+        switch (name) {
+            case "summary":
+                return () -> {
+                    MonthlySummary summary = new MonthlySummary(YearMonth.from(entries.getDate(0)), 0);
+                    summary.addColumns(entries);
+                    return summary;
+                };
+            case "tableRows":
+                return () -> {
+                    DailyEntryTableModel model = DailyEntryTableModel.of(entries);
+                    int length = 0;
+                    for (int row = 0; row < model.getRowCount(); row++) {
+                        for (int column = 0; column < model.getColumnCount(); column++) {
+                            length += ((String) model.getValueAt(row, column)).length();
+                        }
+                    }
+                    return length;
+                };
+            case "analyticsBuild":
+                return () -> LedgerAnalytics.of(entries);
+            case "analyticsDashboard": {
+                // What the analytics window computes for one "as of" date, after one changed day
+                LedgerAnalytics analytics = LedgerAnalytics.of(entries);
+                LocalDate asOf = entries.getDate(entries.size() - 1);
+                YearMonth month = YearMonth.from(asOf);
+                long[] counter = {0};
+                return () -> {
+                    analytics.put(asOf, 50_000 + counter[0]++ % 1000, 20_000);
+                    return analytics.getMovingAverageProfitCents(asOf, 7)
+                            + analytics.getMovingAverageProfitCents(asOf, 30)
+                            + analytics.getMovingAverageProfitCents(asOf, 90)
+                            + analytics.getYearToDateProfitCents(asOf)
+                            + analytics.getMonthOverMonthCents(month)
+                            + analytics.getYearOverYearCents(month)
+                            + analytics.getBestDay(asOf.withDayOfYear(1), asOf).getProfitCents()
+                            + analytics.getWorstDay(asOf.withDayOfYear(1), asOf).getProfitCents();
+                };
+            }
+            case "rollup": {
+                // `rows` transactions spread over one month into a TransactionBatch, no database
+                YearMonth month = YearMonth.of(2024, 6);
+                int firstDay = Math.toIntExact(month.atDay(1).toEpochDay());
+                return () -> {
+                    TransactionBatch batch = new TransactionBatch(month, rows);
+                    for (int i = 0; i < rows; i++) {
+                        int day = firstDay + (int) ((long) i * month.lengthOfMonth() / rows);
+                        batch.add(day, 100 + i % 5_000, i % 3 == 0 ? 40 + i % 2_000 : 0, null);
+                    }
+                    return batch.getDailyTotals();
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Unknown workload " + name);
+        }
+    }
+
+    // One entry per day from 2000-01-01 with varying amounts
+    static LedgerColumns entries(int rows) {
+        LedgerColumns entries = new LedgerColumns(rows);
+        int firstDay = Math.toIntExact(LocalDate.of(2000, 1, 1).toEpochDay());
+        for (int i = 0; i < rows; i++) {
+            entries.append(firstDay + i, 50_000 + (i * 7919L) % 150_000, 20_000 + (i * 104_729L) % 90_000);
+        }
+        return entries;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,164 @@
+import bench.Fixture;
+import bench.Workload;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+// Database for DataLayerBenchmark.
+//
+// Starts an embedded MariaDB (MariaDB4j) with an empty "balance_bench" schema, unless
+// -Dbench.db.url / -Dbench.db.user / -Dbench.db.password name a server to use instead
+// (its schema is dropped and recreated). DatabaseManager is pointed at it through a
+// generated config file, and 2023-01 .. 2024-12 are seeded with one entry per day.
+// -Dbench.storage=ledger runs the same workloads on the partitioned ledger table, and
+// -Dbench.config.KEY=value adds any other db.properties key.
+public class DataLayerFixture implements Fixture {
+
+    private static final String SCHEMA = "balance_bench";
+    private static final YearMonth FIRST_MONTH = YearMonth.of(2023, 1);
+    private static final YearMonth LAST_MONTH = YearMonth.of(2024, 12);
+
+    private final DB embedded;
+    private final File config;
+    private final DatabaseManager db;
+
+    public DataLayerFixture() throws Exception {
+        String url = System.getProperty("bench.db.url");
+        String user = System.getProperty("bench.db.user", "root");
+        String password = System.getProperty("bench.db.password", "");
+
+        if (url == null) {
+            DBConfigurationBuilder builder = DBConfigurationBuilder.newBuilder();
+            builder.setPort(0); // any free port
+            if ("root".equals(System.getProperty("user.name"))) {
+                builder.addArg("--user=root"); // mysqld refuses to run as root otherwise
+            }
+            embedded = DB.newEmbeddedDB(builder.build());
+            embedded.start();
+            url = "jdbc:mariadb://localhost:" + builder.getPort() + "/";
+        } else {
+            embedded = null;
+            url = url.endsWith("/") ? url : url + "/";
+        }
+
+        try (Connection conn = DriverManager.getConnection(url, user, password);
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP DATABASE IF EXISTS " + SCHEMA);
+            stmt.execute("CREATE DATABASE " + SCHEMA);
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty("DB_URL", url + SCHEMA);
+        properties.setProperty("DB_USER", user);
+        properties.setProperty("DB_PASSWORD", password);
+        properties.setProperty("DB_STORAGE_MODE", System.getProperty("bench.storage", "monthly"));
+        properties.setProperty("DB_JOURNAL_FILE", ""); // insert/upsert measure the database write itself
+        for (String key : System.getProperties().stringPropertyNames()) {
+            if (key.startsWith("bench.config.")) { // e.g. -Dbench.config.DB_STATEMENT_CACHE_SIZE=0
+                properties.setProperty(key.substring("bench.config.".length()), System.getProperty(key));
+            }
+        }
+        config = File.createTempFile("balance-bench", ".properties");
+        try (OutputStream out = new FileOutputStream(config)) {
+            properties.store(out, "Generated by DataLayerFixture");
+        }
+        System.setProperty("balance.config", config.getAbsolutePath()); // before DatabaseManager loads
+
+        db = new DatabaseManager();
+        List<DailyEntry> seed = new ArrayList<>();
+        for (LocalDate date = FIRST_MONTH.atDay(1); !date.isAfter(LAST_MONTH.atEndOfMonth()); date = date.plusDays(1)) {
+            seed.add(entry(date, seed.size()));
+        }
+        for (EntryWriteResult result : db.insertDailyEntries(seed)) {
+            if (!result.isSuccess()) throw new IllegalStateException("Seeding failed: " + result.getError());
+        }
+    }
+
+    @Override
+    public Workload workload(String name, int rows) {
+        switch (name) {
+            case "insert": {
+                // Days after the seeded range, one new day per call
+                LocalDate[] next = {LAST_MONTH.plusMonths(1).atDay(1)};
+                int[] counter = {0};
+                return () -> {
+                    db.insertDailyEntry(entry(next[0], counter[0]++));
+                    next[0] = next[0].plusDays(1);
+                    return next[0];
+                };
+            }
+            case "upsert": {
+                LocalDate date = LocalDate.of(2024, 6, 15);
+                int[] counter = {0};
+                return () -> {
+                    db.insertDailyEntry(entry(date, counter[0]++));
+                    return counter[0];
+                };
+            }
+            case "batchUpsert": {
+                YearMonth month = YearMonth.of(2024, 3);
+                int[] counter = {0};
+                return () -> {
+                    List<DailyEntry> entries = new ArrayList<>(rows);
+                    for (int day = 1; day <= Math.min(rows, month.lengthOfMonth()); day++) {
+                        entries.add(entry(month.atDay(day), counter[0]++));
+                    }
+                    return db.insertDailyEntries(entries);
+                };
+            }
+            case "monthFetch": {
+                String tableName = DatabaseManager.getMonthlyTableName(LocalDate.of(2024, 6, 1));
+                return () -> db.loadEntriesFromMonthlyTable(tableName);
+            }
+            case "rangeFetch":
+                return () -> db.getEntries(FIRST_MONTH.atDay(1), LAST_MONTH.atEndOfMonth());
+            case "summaryLookup": {
+                YearMonth month = YearMonth.of(2024, 6);
+                return () -> db.getMonthlySummary(month);
+            }
+            case "ingest": {
+                // `rows` transactions of one day through TransactionAggregator, a new day after
+                // the seeded range per call (a new monthly table every 31 calls)
+                TransactionAggregator aggregator = new TransactionAggregator(db, rows + 1); // flushed by hand
+                int[] day = {Math.toIntExact(LAST_MONTH.plusMonths(1).atDay(1).toEpochDay())};
+                String[] references = new String[rows];
+                for (int i = 0; i < rows; i++) {
+                    references[i] = "POS-" + i;
+                }
+                return () -> {
+                    for (int i = 0; i < rows; i++) {
+                        aggregator.add(day[0], 100 + i % 5_000, i % 3 == 0 ? 40 + i % 2_000 : 0, references[i]);
+                    }
+                    aggregator.flush();
+                    return day[0]++;
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Unknown workload " + name);
+        }
+    }
+
+    // Deterministic amounts that change with n, so upserts really update the row
+    private static DailyEntry entry(LocalDate date, int n) {
+        return new DailyEntry(date, 50_000 + (n * 7919L) % 150_000, 20_000 + (n * 104_729L) % 90_000);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (embedded != null) {
+            embedded.stop();
+        }
+        config.delete();
+    }
+}
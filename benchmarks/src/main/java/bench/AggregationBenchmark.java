@@ -0,0 +1,63 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// In-memory work on loaded entries, no database (see AggregationFixture)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+
+    // One month and roughly 27 years of daily rows
+    @Param({"31", "10000"})
+    public int rows;
+
+    private Fixture fixture;
+    private Workload summary;
+    private Workload tableRows;
+    private Workload analyticsBuild;
+    private Workload analyticsDashboard;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = Fixture.load("AggregationFixture");
+        summary = fixture.workload("summary", rows);
+        tableRows = fixture.workload("tableRows", rows);
+        analyticsBuild = fixture.workload("analyticsBuild", rows);
+        analyticsDashboard = fixture.workload("analyticsDashboard", rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    // Revenue, expense and profit totals of the entries
+    @Benchmark
+    public Object summary() throws Exception {
+        return summary.run();
+    }
+
+    // Columns to table model, every cell rendered once (what the balance view paints)
+    @Benchmark
+    public Object tableRows() throws Exception {
+        return tableRows.run();
+    }
+
+    // LedgerAnalytics from the columns (the one linear pass)
+    @Benchmark
+    public Object analyticsBuild() throws Exception {
+        return analyticsBuild.run();
+    }
+
+    // One changed day plus every figure of the analytics window
+    @Benchmark
+    public Object analyticsDashboard() throws Exception {
+        return analyticsDashboard.run();
+    }
+}
@@ -0,0 +1,75 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// DatabaseManager round trips against a seeded database (see DataLayerFixture)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataLayerBenchmark {
+
+    private Fixture fixture;
+    private Workload insert;
+    private Workload upsert;
+    private Workload batchUpsert;
+    private Workload monthFetch;
+    private Workload rangeFetch;
+    private Workload summaryLookup;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = Fixture.load("DataLayerFixture");
+        insert = fixture.workload("insert", 1);
+        upsert = fixture.workload("upsert", 1);
+        batchUpsert = fixture.workload("batchUpsert", 31);
+        monthFetch = fixture.workload("monthFetch", 0);
+        rangeFetch = fixture.workload("rangeFetch", 0);
+        summaryLookup = fixture.workload("summaryLookup", 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    // New day, one row (a new monthly table every 31 calls)
+    @Benchmark
+    public Object insert() throws Exception {
+        return insert.run();
+    }
+
+    // Existing day, changed amounts
+    @Benchmark
+    public Object upsert() throws Exception {
+        return upsert.run();
+    }
+
+    // A whole month (31 rows) through insertDailyEntries
+    @Benchmark
+    public Object batchUpsert() throws Exception {
+        return batchUpsert.run();
+    }
+
+    // All rows of one month
+    @Benchmark
+    public Object monthFetch() throws Exception {
+        return monthFetch.run();
+    }
+
+    // Two years of rows across 24 months
+    @Benchmark
+    public Object rangeFetch() throws Exception {
+        return rangeFetch.run();
+    }
+
+    // Totals and carry-over of one month from the summary table
+    @Benchmark
+    public Object summaryLookup() throws Exception {
+        return summaryLookup.run();
+    }
+}
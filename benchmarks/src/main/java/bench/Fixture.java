@@ -0,0 +1,16 @@
+package bench;
+
+// Test data and workloads for one benchmark class, implemented in the default package
+public interface Fixture extends AutoCloseable {
+
+    // Workload by name; rows is the data size where the workload has one
+    Workload workload(String name, int rows) throws Exception;
+
+    @Override
+    void close() throws Exception;
+
+    // Instantiates a default-package fixture by class name
+    static Fixture load(String className) throws Exception {
+        return (Fixture) Class.forName(className).getConstructor().newInstance();
+    }
+}
@@ -0,0 +1,52 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Transaction ingestion in transactions per second: rolling line items up into per-day
+// totals in memory, and the whole path into the database (see TransactionAggregator)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestBenchmark {
+
+    private static final int TRANSACTIONS = 10_000;
+
+    private Fixture aggregation;
+    private Fixture database;
+    private Workload rollup;
+    private Workload ingest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        aggregation = Fixture.load("AggregationFixture");
+        database = Fixture.load("DataLayerFixture");
+        rollup = aggregation.workload("rollup", TRANSACTIONS);
+        ingest = database.workload("ingest", TRANSACTIONS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        database.close();
+        aggregation.close();
+    }
+
+    // 10,000 transactions of one month into a TransactionBatch, no database
+    @Benchmark
+    @OperationsPerInvocation(TRANSACTIONS)
+    public Object rollup() throws Exception {
+        return rollup.run();
+    }
+
+    // 10,000 transactions of one day written through TransactionAggregator: line items
+    // inserted in JDBC batches, the day's totals added, summary refreshed, one commit
+    @Benchmark
+    @OperationsPerInvocation(TRANSACTIONS)
+    public Object ingest() throws Exception {
+        return ingest.run();
+    }
+}
@@ -0,0 +1,9 @@
+package bench;
+
+// One benchmarked operation. The application lives in the default package, which JMH
+// benchmark classes cannot import, so fixtures in the default package hand out workloads
+// through this interface.
+public interface Workload {
+
+    Object run() throws Exception;
+}
@@ -0,0 +1,66 @@
+import javax.swing.*;
+import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// The application's single window: screens are cards of one JFrame, and switching between
+// them only flips the card. A screen is built the first time it is shown and kept, so the
+// login, the menu and the table views are not rebuilt per use. Runs entirely on the EDT;
+// nothing polls, the window closing ends the app.
+public class AppShell {
+
+    public static final String LOGIN = "login";
+    public static final String MENU = "menu";
+
+    private final JFrame frame;
+    private final CardLayout cards = new CardLayout();
+    private final JPanel content = new JPanel(cards);
+    private final Map<String, Supplier<? extends JComponent>> factories = new HashMap<>();
+    private final Map<String, String> titles = new HashMap<>();
+    private final Map<String, JComponent> screens = new HashMap<>();
+
+    public AppShell(String title) {
+        frame = new JFrame(title);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+        frame.add(content);
+    }
+
+    // Registers a screen and its window title; the factory runs once, on the first show()
+    public void register(String name, String title, Supplier<? extends JComponent> factory) {
+        factories.put(name, factory);
+        titles.put(name, title);
+    }
+
+    // The screen's component, built now if it was not shown yet
+    public JComponent getScreen(String name) {
+        JComponent screen = screens.get(name);
+        if (screen == null) {
+            Supplier<? extends JComponent> factory = factories.get(name);
+            if (factory == null) throw new IllegalArgumentException("Unknown screen: " + name);
+            screen = factory.get();
+            screens.put(name, screen);
+            content.add(screen, name);
+        }
+        return screen;
+    }
+
+    // Brings the screen to the front and shows the window if it is not visible yet
+    public void show(String name) {
+        show(name, titles.get(name));
+    }
+
+    // Same, with a title for this showing (e.g. the month of a table view)
+    public void show(String name, String title) {
+        getScreen(name);
+        cards.show(content, name);
+        frame.setTitle(title);
+        if (!frame.isVisible()) frame.setVisible(true);
+    }
+
+    // Parent for dialogs, so they open centered on the app window
+    public JFrame getFrame() {
+        return frame;
+    }
+}
@@ -0,0 +1,252 @@
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Asynchronous facade over DatabaseManager so database work never runs on the Swing EDT.
+//
+// Calls run on a bounded worker pool (sized like the connection pool) and return
+// CompletableFutures. Every call has a timeout and cancelling the returned future frees the
+// caller immediately, but a call that has started is never interrupted: its statements carry
+// the same timeout as a JDBC query timeout, so the server stops a slow read, and a write that
+// times out fails with WriteTimeoutException because it may still commit. Completion
+// callbacks run on the worker thread – use SwingUtilities.invokeLater to touch the UI.
+public class AsyncDatabaseManager {
+
+    private static volatile AsyncDatabaseManager instance;
+
+    private final DatabaseManager db;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timer;
+    private final long defaultTimeoutMs;
+
+    public AsyncDatabaseManager(DatabaseManager db, int threads, int queueCapacity, long defaultTimeoutMs) {
+        this.db = db;
+        this.defaultTimeoutMs = defaultTimeoutMs;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread t = new Thread(r, "balance-db-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "balance-db-timeouts");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Shared instance configured from db.properties
+    public static AsyncDatabaseManager getInstance() {
+        if (instance == null) {
+            synchronized (AsyncDatabaseManager.class) {
+                if (instance == null) {
+                    instance = new AsyncDatabaseManager(new DatabaseManager(),
+                            DatabaseManager.getIntProperty("DB_ASYNC_THREADS", DatabaseManager.getIntProperty("DB_POOL_MAX_SIZE", 10)),
+                            DatabaseManager.getIntProperty("DB_ASYNC_QUEUE", 100),
+                            DatabaseManager.getLongProperty("DB_QUERY_TIMEOUT_MS", 30_000L));
+                }
+            }
+        }
+        return instance;
+    }
+
+    // Warms the database layer up on a background thread while the login screen is shown, so
+    // the first login and the first month view do not pay for loading the configuration and
+    // driver, connection handshakes, the schema catalog and cold code (DB_WARMUP=false: off)
+    public static void warmUpInBackground() {
+        Thread thread = new Thread(() -> {
+            try {
+                getInstance().warmUp();
+            } catch (Throwable e) {
+                e.printStackTrace(); // the first real call reports it again
+            }
+        }, "balance-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Opens the pool's connections and, in parallel, loads the schema catalog and then the
+    // current month into the month cache, and syncs the local snapshot of past months.
+    // Failures are only logged.
+    public CompletableFuture<Void> warmUp() {
+        if (!Boolean.parseBoolean(DatabaseManager.getProperty("DB_WARMUP", "true").trim())) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        String currentMonth = DatabaseManager.getMonthlyTableName(LocalDate.now());
+        CompletableFuture<Void> connections = submit(() -> {
+            DatabaseManager.warmUpConnections();
+            return null;
+        });
+        CompletableFuture<LedgerColumns> month = submit(db::getExistingMonthlyTables)
+                .thenCompose(tables -> submit(() -> db.loadMonthColumns(currentMonth)));
+        CompletableFuture<Integer> snapshot = submit(db::syncSnapshot);
+        return CompletableFuture.allOf(connections, month, snapshot).handle((ignored, e) -> {
+            if (e != null) e.printStackTrace();
+            DatabaseMetrics.recordWarmUp(System.nanoTime() - start);
+            return null;
+        });
+    }
+
+    // Runs any database call with the default timeout
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        return submit(call, defaultTimeoutMs);
+    }
+
+    // Runs a database call on the worker pool; the future fails with TimeoutException after timeoutMs
+    public <T> CompletableFuture<T> submit(Callable<T> call, long timeoutMs) {
+        return submit(call, timeoutMs, false);
+    }
+
+    // Runs a call that changes data: once it has started it cannot be cancelled, and a
+    // timeout fails the future with WriteTimeoutException as the outcome is unknown
+    private <T> CompletableFuture<T> submitWrite(Callable<T> call) {
+        return submit(call, defaultTimeoutMs, true);
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> call, long timeoutMs, boolean write) {
+        TaskFuture<T> future = new TaskFuture<>(write);
+        int querySeconds = (int) Math.min(Integer.MAX_VALUE, (timeoutMs + 999) / 1000);
+        FutureTask<T> task = new FutureTask<T>(() -> {
+            ConnectionPool.setThreadQueryTimeout(querySeconds);
+            try {
+                return call.call();
+            } finally {
+                ConnectionPool.setThreadQueryTimeout(0);
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (isCancelled()) return;
+                try {
+                    future.complete(get());
+                } catch (java.util.concurrent.ExecutionException e) {
+                    future.completeExceptionally(e.getCause());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        };
+        future.task = task;
+
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(new RejectedExecutionException("Too many database requests queued", e));
+            return future;
+        }
+
+        if (timeoutMs > 0) {
+            ScheduledFuture<?> timeout = timer.schedule(() -> {
+                // A call still in the queue is dropped; a running one is left to finish, as an
+                // interrupt would not stop the server and can close the journal's file channel
+                boolean neverStarted = executor.remove(task);
+                String message = "Database call timed out after " + timeoutMs + " ms";
+                future.completeExceptionally(write && !neverStarted
+                        ? new WriteTimeoutException(message + "; the change may still have been saved")
+                        : new TimeoutException(message));
+            }, timeoutMs, TimeUnit.MILLISECONDS);
+            future.whenComplete((result, error) -> timeout.cancel(false));
+        }
+        return future;
+    }
+
+    public CompletableFuture<List<DailyEntry>> getEntriesFromMonthlyTable(String tableName) {
+        return submit(() -> db.loadEntriesFromMonthlyTable(tableName));
+    }
+
+    public CompletableFuture<LedgerColumns> getMonthColumns(String tableName) {
+        return submit(() -> db.loadMonthColumns(tableName));
+    }
+
+    public CompletableFuture<List<DailyEntry>> getEntries(LocalDate from, LocalDate to) {
+        return submit(() -> db.getEntries(from, to));
+    }
+
+    public CompletableFuture<Boolean> doesMonthlyTableExist(String tableName) {
+        return submit(() -> db.doesMonthlyTableExist(tableName));
+    }
+
+    public CompletableFuture<Long> getTotalProfitFromTable(String tableName) {
+        return submit(() -> db.getTotalProfitFromTable(tableName));
+    }
+
+    public CompletableFuture<List<String>> getExistingMonthlyTables() {
+        return submit(db::getExistingMonthlyTables);
+    }
+
+    public CompletableFuture<List<MonthlySummary>> getMonthTotals() {
+        return submit(db::getMonthTotals);
+    }
+
+    public CompletableFuture<Void> insertDailyEntry(DailyEntry entry) {
+        return submitWrite(() -> {
+            db.insertDailyEntry(entry);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<EntryWriteResult>> insertDailyEntries(Collection<DailyEntry> entries) {
+        return submitWrite(() -> db.insertDailyEntries(entries));
+    }
+
+    public CompletableFuture<Boolean> updateEntryInMonthlyTable(DailyEntry entry, String tableName) {
+        return submitWrite(() -> db.updateEntryInMonthlyTable(entry, tableName));
+    }
+
+    public CompletableFuture<Boolean> validateUser(String username, String password) {
+        return submit(() -> DatabaseManager.validateUser(username, password));
+    }
+
+    public CompletableFuture<Boolean> addUser(String username, String password) {
+        return submitWrite(() -> DatabaseManager.addUser(username, password));
+    }
+
+    // Stops accepting work; queued and running calls still finish
+    public void shutdown() {
+        executor.shutdown();
+        timer.shutdownNow();
+    }
+
+    // A write call timed out while running: it may have committed or may still commit
+    public static final class WriteTimeoutException extends TimeoutException {
+        public WriteTimeoutException(String message) {
+            super(message);
+        }
+    }
+
+    // CompletableFuture whose cancel() also drops the call if it has not started yet.
+    // A running write cannot be cancelled (cancel returns false and the result still arrives).
+    private final class TaskFuture<T> extends CompletableFuture<T> {
+        private final boolean write;
+        volatile FutureTask<T> task;
+
+        TaskFuture(boolean write) {
+            this.write = write;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            FutureTask<T> t = task;
+            boolean dequeued = t != null && executor.remove(t);
+            if (write && t != null && !dequeued) return false;
+            return super.cancel(false);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 import javax.swing.*;
 import java.awt.*;
-import java.text.DecimalFormat;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import org.jdatepicker.impl.*;
 import java.time.ZoneId;
 import java.util.*;
@@ -11,58 +13,99 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import javax.swing.JFormattedTextField.AbstractFormatter;
 import javax.swing.border.EmptyBorder;
-import javax.swing.table.DefaultTableCellRenderer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 
 public class BalanceAppGUI {
 
-    // Shows a dialog for inserting a new balance entry (date, revenue, expense)
-    public void showInsertBalanceDialog() {
-        // Date Picker Setup
-        UtilDateModel model = new UtilDateModel();
-        model.setValue(new Date());
-        Properties p = new Properties();
-        p.put("text.today", "Today");
-        p.put("text.month", "Month");
-        p.put("text.year", "Year");
-        JDatePanelImpl datePanel = new JDatePanelImpl(model, p);
-        JDatePickerImpl datePicker = new JDatePickerImpl(datePanel, new DateLabelFormatter());
-
+    private static final BalanceCellRenderer BALANCE_RENDERER = new BalanceCellRenderer();
+
+    // Earliest day the analytics dashboard loads (the year pickers start at 2000 too)
+    private static final LocalDate ANALYTICS_START = LocalDate.of(2000, 1, 1);
+
+    private static final String BALANCE = "balance";
+    private static final String ANALYTICS = "analytics";
+
+    private static final String[] MONTHS = {
+            "January", "February", "March", "April", "May", "June",
+            "July", "August", "September", "October", "November", "December"
+    };
+
+    private final AppShell shell;
+
+    // Called with the user name after a successful login
+    private Consumer<String> onLogin = username -> { };
+
+    // Components of the cached screens and forms, built on first use and then reused
+    private EntryForm insertForm;
+    private EntryForm updateForm;
+    private MonthForm monthForm;
+    private RangeForm rangeForm;
+    private JTable balanceTable;
+    private JScrollPane balanceScroll;
+    private UtilDateModel analyticsAsOf;
+    private JLabel[] analyticsValues;
+    private LedgerAnalytics analytics;
+    private LocalDate analyticsEnd; // last day the loaded analytics cover
+
+    public BalanceAppGUI(AppShell shell) {
+        this.shell = shell;
+        shell.register(AppShell.LOGIN, "Login", this::createLoginScreen);
+        shell.register(BALANCE, "Balance", this::createBalanceScreen);
+        shell.register(ANALYTICS, "Analytics", this::createAnalyticsScreen);
+    }
 
-        JFormattedTextField revenueField = new JFormattedTextField();
-        revenueField.setColumns(10);
-        JFormattedTextField expenseField = new JFormattedTextField();
-        expenseField.setColumns(10);
+    // Date picker, revenue and expense fields of the insert and update dialogs
+    private static final class EntryForm {
+        final JPanel panel = new JPanel(new GridBagLayout());
+        final UtilDateModel date = new UtilDateModel();
+        final JFormattedTextField revenue = new JFormattedTextField();
+        final JFormattedTextField expense = new JFormattedTextField();
+
+        // Today and empty amounts, like a new form
+        void reset() {
+            date.setValue(new Date());
+            revenue.setText("");
+            expense.setText("");
+        }
+    }
 
-        // Panel layout
-        JPanel inputPanel = new JPanel(new GridBagLayout());
-        inputPanel.setBorder(BorderFactory.createTitledBorder("Insert Daily Balance"));
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(10, 10, 10, 10);
-        gbc.anchor = GridBagConstraints.WEST;
+    // Month and year selection (keeps the last choice)
+    private static final class MonthForm {
+        final JPanel panel = new JPanel(new GridLayout(2, 2, 10, 10));
+        final JComboBox<String> month = new JComboBox<>(MONTHS);
+        final JSpinner year = new JSpinner(new SpinnerNumberModel(LocalDate.now().getYear(), 2000, 2100, 1));
+    }
 
-        gbc.gridx = 0;
-        gbc.gridy = 0;
-        inputPanel.add(new JLabel("Select Date:"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(datePicker, gbc);
+    // From and to date selection (keeps the last choice)
+    private static final class RangeForm {
+        final JPanel panel = new JPanel(new GridLayout(2, 2, 10, 10));
+        final UtilDateModel from = new UtilDateModel();
+        final UtilDateModel to = new UtilDateModel();
+    }
 
-        gbc.gridx = 0;
-        gbc.gridy = 1;
-        inputPanel.add(new JLabel("Revenue (€):"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(revenueField, gbc);
+    // Shows the login screen; onLogin runs on the EDT after a successful login
+    public void showLogin(Consumer<String> onLogin) {
+        this.onLogin = onLogin;
+        shell.show(AppShell.LOGIN);
+    }
 
-        gbc.gridx = 0;
-        gbc.gridy = 2;
-        inputPanel.add(new JLabel("Expense (€):"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(expenseField, gbc);
+    // Shows a dialog for inserting a new balance entry (date, revenue, expense)
+    public void showInsertBalanceDialog() {
+        if (insertForm == null) {
+            insertForm = createEntryForm("Insert Daily Balance", "Revenue (€):", "Expense (€):");
+        }
+        EntryForm form = insertForm;
+        form.reset();
 
         // Show dialog
         int result = JOptionPane.showConfirmDialog(
-                null,
-                inputPanel,
+                shell.getFrame(),
+                form.panel,
                 "Insert Balance Entry",
                 JOptionPane.OK_CANCEL_OPTION,
                 JOptionPane.PLAIN_MESSAGE
@@ -70,31 +113,74 @@ public class BalanceAppGUI {
 
         if (result == JOptionPane.OK_OPTION) {
             try {
-                Date selectedDate = (Date) datePicker.getModel().getValue();
+                Date selectedDate = form.date.getValue();
                 if (selectedDate == null) throw new Exception("Date is required");
 
                 LocalDate date = selectedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
 
-                String revenueText = revenueField.getText().trim();
-                String expenseText = expenseField.getText().trim();
+                String revenueText = form.revenue.getText().trim();
+                String expenseText = form.expense.getText().trim();
                 if (revenueText.isEmpty() || expenseText.isEmpty()) {
                     throw new Exception("Both revenue and expense must be entered.");
                 }
 
-                double revenue = Double.parseDouble(revenueText.replace(",", ""));
-                double expense = Double.parseDouble(expenseText.replace(",", ""));
+                long revenue = Money.parse(revenueText.replace(",", ""));
+                long expense = Money.parse(expenseText.replace(",", ""));
 
                 DailyEntry entry = new DailyEntry(date, revenue, expense);
-                DatabaseManager db = new DatabaseManager();
-                db.insertDailyEntry(entry);
-
-                JOptionPane.showMessageDialog(null, "Entry saved successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                runInBackground("Saving entry...",
+                        AsyncDatabaseManager.getInstance().insertDailyEntry(entry),
+                        saved -> {
+                            updateAnalytics(entry);
+                            JOptionPane.showMessageDialog(shell.getFrame(), "Entry saved successfully.", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        });
             } catch (Exception e) {
-                JOptionPane.showMessageDialog(null, "Error: " + e.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(shell.getFrame(), "Error: " + e.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
             }
         }
     }
 
+    // Built once per dialog kind and reused
+    private EntryForm createEntryForm(String title, String revenueLabel, String expenseLabel) {
+        EntryForm form = new EntryForm();
+        JDatePickerImpl datePicker = new JDatePickerImpl(new JDatePanelImpl(form.date, datePickerTexts()), new DateLabelFormatter());
+        form.revenue.setColumns(10);
+        form.expense.setColumns(10);
+
+        // Panel layout
+        form.panel.setBorder(BorderFactory.createTitledBorder(title));
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(10, 10, 10, 10);
+        gbc.anchor = GridBagConstraints.WEST;
+
+        gbc.gridx = 0;
+        gbc.gridy = 0;
+        form.panel.add(new JLabel("Select Date:"), gbc);
+        gbc.gridx = 1;
+        form.panel.add(datePicker, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy = 1;
+        form.panel.add(new JLabel(revenueLabel), gbc);
+        gbc.gridx = 1;
+        form.panel.add(form.revenue, gbc);
+
+        gbc.gridx = 0;
+        gbc.gridy = 2;
+        form.panel.add(new JLabel(expenseLabel), gbc);
+        gbc.gridx = 1;
+        form.panel.add(form.expense, gbc);
+        return form;
+    }
+
+    private static Properties datePickerTexts() {
+        Properties p = new Properties();
+        p.put("text.today", "Today");
+        p.put("text.month", "Month");
+        p.put("text.year", "Year");
+        return p;
+    }
+
 
     // Formatter class to handle display and parsing of date in "dd.MM.yyyy" format
     public class DateLabelFormatter extends AbstractFormatter {
@@ -118,122 +204,76 @@ public class BalanceAppGUI {
 
     // Displays the monthly balance entries in a fullscreen table
     public void showMonthlyBalanceTable() {
-        String[] months = {
-                "January", "February", "March", "April", "May", "June",
-                "July", "August", "September", "October", "November", "December"
-        };
-        JComboBox<String> monthCombo = new JComboBox<>(months);
-
-        SpinnerNumberModel yearModel = new SpinnerNumberModel(LocalDate.now().getYear(), 2000, 2100, 1);
-        JSpinner yearSpinner = new JSpinner(yearModel);
-        JSpinner.NumberEditor editor = new JSpinner.NumberEditor(yearSpinner, "####");
-        yearSpinner.setEditor(editor);
+        YearMonth month = showMonthDialog();
+        if (month == null) return;
+
+        String tableName = DatabaseManager.getMonthlyTableName(month.atDay(1));
+        String title = MONTHS[month.getMonthValue() - 1] + " " + month.getYear();
+
+        runInBackground("Loading " + title + "...",
+                AsyncDatabaseManager.getInstance().getMonthColumns(tableName),
+                columns -> {
+                    if (columns.isEmpty()) {
+                        JOptionPane.showMessageDialog(shell.getFrame(), "No entries found or table '" + tableName + "' does not exist.");
+                        return;
+                    }
+                    showBalanceFrame(title, DailyEntryTableModel.of(columns));
+                });
+    }
 
-        JPanel monthPanel = new JPanel(new GridLayout(2, 2, 10, 10));
-        monthPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
-        monthPanel.add(new JLabel("Select Month:"));
-        monthPanel.add(monthCombo);
-        monthPanel.add(new JLabel("Select Year:"));
-        monthPanel.add(yearSpinner);
+    // Asks for a month and year; null if cancelled
+    private YearMonth showMonthDialog() {
+        if (monthForm == null) {
+            monthForm = new MonthForm();
+            monthForm.year.setEditor(new JSpinner.NumberEditor(monthForm.year, "####"));
+            monthForm.panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            monthForm.panel.add(new JLabel("Select Month:"));
+            monthForm.panel.add(monthForm.month);
+            monthForm.panel.add(new JLabel("Select Year:"));
+            monthForm.panel.add(monthForm.year);
+        }
 
         int result = JOptionPane.showConfirmDialog(
-                null,
-                monthPanel,
+                shell.getFrame(),
+                monthForm.panel,
                 "Select Month and Year",
                 JOptionPane.OK_CANCEL_OPTION,
                 JOptionPane.PLAIN_MESSAGE
         );
 
-        if (result != JOptionPane.OK_OPTION) return;
-
-        int selectedMonth = monthCombo.getSelectedIndex() + 1;
-        int selectedYear = (Integer) yearSpinner.getValue();
-        LocalDate selectedDate = LocalDate.of(selectedYear, selectedMonth, 1);
-
-        String tableName = DatabaseManager.getMonthlyTableName(selectedDate);
-        DatabaseManager db = new DatabaseManager();
-        List<DailyEntry> entries = db.getEntriesFromMonthlyTable(tableName, null);
-
-        if (entries.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "No entries found or table '" + tableName + "' does not exist.");
-            return;
-        }
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d. M. yyyy");
-        String[] columnNames = {"Date", "Revenue (€)", "Expense (€)", "Profit (€)"};
-        Object[][] data = new Object[entries.size()][4];
-
-        DecimalFormat df = new DecimalFormat("#0.00"); // Always 2 decimals
-
-        for (int i = 0; i < entries.size(); i++) {
-            DailyEntry e = entries.get(i);
-            data[i][0] = e.getDate().format(formatter);
-            data[i][1] = df.format(e.getRevenue());
-            data[i][2] = df.format(e.getExpense());
-            data[i][3] = df.format(e.getProfit());
-        }
-
-        JTable table = new JTable(data, columnNames);
-        table.setRowHeight(30);
-        table.setFont(new Font("Segoe UI", Font.PLAIN, 16));
-        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 18));
-        table.getTableHeader().setBackground(new Color(240, 240, 240));
-        table.getTableHeader().setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-
-        // Alternate row colors (modern look)
-        table.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(
-                    JTable table, Object value, boolean isSelected,
-                    boolean hasFocus, int row, int column) {
-
-                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
-
-                if (!isSelected) {
-                    if (row % 2 == 0) {
-                        c.setBackground(new Color(250, 250, 250)); // light gray
-                    } else {
-                        c.setBackground(Color.WHITE);
-                    }
-                } else {
-                    c.setBackground(new Color(200, 220, 255)); // highlight blue
-                }
-
-                // Profit column: green/red text
-                if (column == 3 && value instanceof String) {
-                    try {
-                        double profit = Double.parseDouble(((String) value).replace(",", "."));
-                        if (profit > 0) {
-                            c.setForeground(new Color(0, 128, 0)); // green
-                        } else if (profit < 0) {
-                            c.setForeground(Color.RED); // red
-                        } else {
-                            c.setForeground(Color.BLACK);
-                        }
-                    } catch (NumberFormatException ex) {
-                        c.setForeground(Color.BLACK);
-                    }
-                } else {
-                    c.setForeground(Color.BLACK);
-                }
-
-                setHorizontalAlignment(CENTER);
-                return c;
-            }
-        });
-
-        JScrollPane scrollPane = new JScrollPane(table);
+        if (result != JOptionPane.OK_OPTION) return null;
+        return YearMonth.of((Integer) monthForm.year.getValue(), monthForm.month.getSelectedIndex() + 1);
+    }
 
-        // === Frame ===
-        JFrame frame = new JFrame("Balance for " + months[selectedMonth - 1] + " " + selectedYear);
-        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
-        frame.setLayout(new BorderLayout(20, 20));
+    // Shows the table screen with the entries; the table is reused, only its model changes
+    private void showBalanceFrame(String title, DailyEntryTableModel model) {
+        shell.getScreen(BALANCE);
+        balanceTable.setModel(model);
+        balanceScroll.getVerticalScrollBar().setValue(0);
+        shell.show(BALANCE, "Balance for " + title);
+    }
 
-        // Add table
-        frame.add(scrollPane, BorderLayout.CENTER);
+    // Fullscreen table of daily entries with zebra rows and green/red profit
+    private JComponent createBalanceScreen() {
+        balanceTable = new JTable();
+        balanceTable.setRowHeight(30);
+        balanceTable.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+        balanceTable.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 18));
+        balanceTable.getTableHeader().setBackground(new Color(240, 240, 240));
+        balanceTable.getTableHeader().setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+        balanceTable.setDefaultRenderer(Object.class, BALANCE_RENDERER);
+        balanceTable.setDefaultRenderer(String.class, BALANCE_RENDERER);
+
+        balanceScroll = new JScrollPane(balanceTable);
+
+        JPanel screen = new JPanel(new BorderLayout(20, 20));
+        screen.add(balanceScroll, BorderLayout.CENTER);
+        screen.add(createCloseBar(), BorderLayout.SOUTH);
+        return screen;
+    }
 
-        // Bottom panel with Close button
+    // Bottom bar with a Close button that returns to the menu
+    private JPanel createCloseBar() {
         JButton closeBtn = new JButton("Close");
         closeBtn.setFont(new Font("Segoe UI", Font.BOLD, 16));
         closeBtn.setBackground(new Color(66, 133, 244));
@@ -241,254 +281,230 @@ public class BalanceAppGUI {
         closeBtn.setFocusPainted(false);
         closeBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
 
-        closeBtn.addActionListener(e -> frame.dispose());
+        closeBtn.addActionListener(e -> shell.show(AppShell.MENU));
 
         JPanel bottomPanel = new JPanel();
         bottomPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
         bottomPanel.add(closeBtn);
-
-        frame.add(bottomPanel, BorderLayout.SOUTH);
-
-        frame.setVisible(true);
+        return bottomPanel;
     }
 
 
 
     // Displays the balance for a given table in fullscreen
     public void showMonthlyBalanceTable2(String tableName) {
-        DatabaseManager db = new DatabaseManager();
-        List<DailyEntry> entries = db.getEntriesFromMonthlyTable(tableName, null);
-
-        if (entries.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "No entries found or table '" + tableName + "' does not exist.");
-            return;
-        }
-
         // Convert "may_25" -> "May 2025"
-        String[] parts = tableName.split("_");
-        String month = parts[0];
-        int yearSuffix = Integer.parseInt(parts[1]);
-        int fullYear = 2000 + yearSuffix;
-        String formattedMonth = month.substring(0, 1).toUpperCase() + month.substring(1);
-        String title = formattedMonth + " " + fullYear;
+        String title = new DatabaseManager().formatTableName(tableName);
+
+        runInBackground("Loading " + title + "...",
+                AsyncDatabaseManager.getInstance().getMonthColumns(tableName),
+                columns -> {
+                    if (columns.isEmpty()) {
+                        JOptionPane.showMessageDialog(shell.getFrame(), "No entries found or table '" + tableName + "' does not exist.");
+                        return;
+                    }
+                    showBalanceFrame(title, DailyEntryTableModel.of(columns));
+                });
+    }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d. M. yyyy");
-        String[] columnNames = {"Date", "Revenue (€)", "Expense (€)", "Profit (€)"};
-        Object[][] data = new Object[entries.size()][4];
 
-        DecimalFormat df = new DecimalFormat("#0.00"); // Always 2 decimals
 
-        for (int i = 0; i < entries.size(); i++) {
-            DailyEntry e = entries.get(i);
-            data[i][0] = e.getDate().format(formatter);
-            data[i][1] = df.format(e.getRevenue());
-            data[i][2] = df.format(e.getExpense());
-            data[i][3] = df.format(e.getProfit());
+    // Displays all entries between two dates; rows are fetched page by page while scrolling
+    public void showBalanceRange() {
+        if (rangeForm == null) {
+            rangeForm = new RangeForm();
+            rangeForm.from.setValue(java.sql.Date.valueOf(LocalDate.now().withDayOfYear(1)));
+            rangeForm.to.setValue(new Date());
+            rangeForm.panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+            rangeForm.panel.add(new JLabel("From:"));
+            rangeForm.panel.add(new JDatePickerImpl(new JDatePanelImpl(rangeForm.from, datePickerTexts()), new DateLabelFormatter()));
+            rangeForm.panel.add(new JLabel("To:"));
+            rangeForm.panel.add(new JDatePickerImpl(new JDatePanelImpl(rangeForm.to, datePickerTexts()), new DateLabelFormatter()));
         }
 
-        JTable table = new JTable(data, columnNames);
-        table.setRowHeight(30);
-        table.setFont(new Font("Segoe UI", Font.PLAIN, 16));
-        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 18));
-        table.getTableHeader().setBackground(new Color(240, 240, 240));
-        table.getTableHeader().setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
-
-        // Zebra rows + profit coloring
-        table.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
-            @Override
-            public Component getTableCellRendererComponent(
-                    JTable table, Object value, boolean isSelected,
-                    boolean hasFocus, int row, int column) {
+        int result = JOptionPane.showConfirmDialog(shell.getFrame(), rangeForm.panel, "Select Date Range",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) return;
 
-                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+        Date fromValue = rangeForm.from.getValue();
+        Date toValue = rangeForm.to.getValue();
+        if (fromValue == null || toValue == null) {
+            JOptionPane.showMessageDialog(shell.getFrame(), "Both dates are required.", "Input Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        LocalDate from = fromValue.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        LocalDate to = toValue.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        if (from.isAfter(to)) {
+            JOptionPane.showMessageDialog(shell.getFrame(), "'From' must not be after 'To'.", "Input Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
 
-                if (!isSelected) {
-                    c.setBackground(row % 2 == 0 ? new Color(250, 250, 250) : Color.WHITE);
-                } else {
-                    c.setBackground(new Color(200, 220, 255)); // light blue
-                }
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d. M. yyyy");
+        String title = from.format(formatter) + " - " + to.format(formatter);
 
-                // Profit column → red/green/black
-                if (column == 3 && value instanceof String) {
-                    try {
-                        double profit = Double.parseDouble(((String) value).replace(",", "."));
-                        if (profit > 0) {
-                            c.setForeground(new Color(0, 128, 0)); // green
-                        } else if (profit < 0) {
-                            c.setForeground(Color.RED); // red
-                        } else {
-                            c.setForeground(Color.BLACK);
-                        }
-                    } catch (NumberFormatException ex) {
-                        c.setForeground(Color.BLACK);
+        // Only the row count and page starts are loaded up front, the model fetches the rows it paints
+        DatabaseManager db = new DatabaseManager();
+        runInBackground("Loading " + title + "...",
+                AsyncDatabaseManager.getInstance().submit(() -> DailyEntryTableModel.loadRange(db, from, to)),
+                model -> {
+                    if (model.getRowCount() == 0) {
+                        JOptionPane.showMessageDialog(shell.getFrame(), "No entries found between " + title + ".");
+                        return;
                     }
-                } else {
-                    c.setForeground(Color.BLACK);
-                }
-
-                setHorizontalAlignment(CENTER);
-                return c;
-            }
-        });
-
-        JScrollPane scrollPane = new JScrollPane(table);
-
-        // === Frame ===
-        JFrame frame = new JFrame("Balance for " + title);
-        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
-        frame.setLayout(new BorderLayout(20, 20));
-        frame.add(scrollPane, BorderLayout.CENTER);
-
-        // Close button
-        JButton closeBtn = new JButton("Close");
-        closeBtn.setFont(new Font("Segoe UI", Font.BOLD, 16));
-        closeBtn.setBackground(new Color(66, 133, 244));
-        closeBtn.setForeground(Color.WHITE);
-        closeBtn.setFocusPainted(false);
-        closeBtn.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
-        closeBtn.addActionListener(e -> frame.dispose());
-
-        JPanel bottomPanel = new JPanel();
-        bottomPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
-        bottomPanel.add(closeBtn);
-
-        frame.add(bottomPanel, BorderLayout.SOUTH);
-
-        frame.setVisible(true);
+                    showBalanceFrame(title, model);
+                });
     }
 
+    // Dashboard of moving averages, year-to-date and period deltas; all entries are loaded once,
+    // then every change of the "as of" date is answered from LedgerAnalytics without a query
+    public void showAnalytics() {
+        LocalDate today = LocalDate.now();
+        DatabaseManager db = new DatabaseManager();
+        runInBackground("Loading analytics...",
+                AsyncDatabaseManager.getInstance().submit(() -> LedgerAnalytics.of(db.loadColumns(ANALYTICS_START, today))),
+                analytics -> showAnalyticsFrame(analytics, today));
+    }
 
+    // Shows the dashboard screen (built once) for freshly loaded analytics
+    private void showAnalyticsFrame(LedgerAnalytics analytics, LocalDate today) {
+        shell.getScreen(ANALYTICS);
+        this.analytics = analytics;
+        this.analyticsEnd = today;
+        analyticsAsOf.setValue(java.sql.Date.valueOf(today));
+        refreshAnalytics();
+        shell.show(ANALYTICS);
+    }
 
-    public void showMonthlyProfitSummary() {
+    private JComponent createAnalyticsScreen() {
+        analyticsAsOf = new UtilDateModel();
+        JDatePickerImpl asOfPicker = new JDatePickerImpl(new JDatePanelImpl(analyticsAsOf, datePickerTexts()), new DateLabelFormatter());
 
-        // Month names
-        String[] months = {
-                "January", "February", "March", "April", "May", "June",
-                "July", "August", "September", "October", "November", "December"
+        String[] labels = {
+                "7-day average profit", "30-day average profit", "90-day average profit", "Profit year to date",
+                "Month vs. previous month", "Month vs. same month last year", "Best day this year", "Worst day this year"
         };
+        analyticsValues = new JLabel[labels.length];
+
+        JPanel grid = new JPanel(new GridLayout(0, 2, 20, 12));
+        grid.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        grid.add(new JLabel("As of:"));
+        grid.add(asOfPicker);
+        for (int i = 0; i < labels.length; i++) {
+            JLabel label = new JLabel(labels[i] + ":");
+            label.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+            analyticsValues[i] = new JLabel();
+            analyticsValues[i].setFont(new Font("Segoe UI", Font.BOLD, 16));
+            grid.add(label);
+            grid.add(analyticsValues[i]);
+        }
+        analyticsAsOf.addChangeListener(e -> refreshAnalytics());
+
+        JPanel centered = new JPanel(new GridBagLayout());
+        centered.add(grid);
+        JPanel screen = new JPanel(new BorderLayout());
+        screen.add(centered, BorderLayout.CENTER);
+        screen.add(createCloseBar(), BorderLayout.SOUTH);
+        return screen;
+    }
 
-        // Create styled combo and spinner
-        JComboBox<String> monthCombo = new JComboBox<>(months);
-        SpinnerNumberModel yearModel = new SpinnerNumberModel(LocalDate.now().getYear(), 2000, 2100, 1);
-        JSpinner yearSpinner = new JSpinner(yearModel);
-        yearSpinner.setEditor(new JSpinner.NumberEditor(yearSpinner, "####"));
-
-        // Build modern input form
-        JPanel inputPanel = new JPanel(new GridBagLayout());
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(8, 8, 8, 8);
-        gbc.anchor = GridBagConstraints.WEST;
+    // Applies a saved entry to the loaded analytics (one put, no reload) and redraws the dashboard
+    private void updateAnalytics(DailyEntry entry) {
+        if (analytics == null || entry.getDate().isBefore(ANALYTICS_START) || entry.getDate().isAfter(analyticsEnd)) {
+            return; // not loaded yet, or a day the dashboard did not load
+        }
+        analytics.put(entry.getDate(), entry.getRevenueCents(), entry.getExpenseCents());
+        refreshAnalytics();
+    }
 
-        gbc.gridx = 0;
-        gbc.gridy = 0;
-        inputPanel.add(new JLabel("Select Month:"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(monthCombo, gbc);
+    // Answers every value from LedgerAnalytics, no query
+    private void refreshAnalytics() {
+        Date value = analyticsAsOf.getValue();
+        if (value == null || analytics == null) return;
+        LocalDate asOf = value.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        YearMonth month = YearMonth.from(asOf);
+        LocalDate yearStart = asOf.withDayOfYear(1);
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d. M. yyyy");
+        JLabel[] values = analyticsValues;
+
+        values[0].setText("€ " + Money.format(analytics.getMovingAverageProfitCents(asOf, 7)));
+        values[1].setText("€ " + Money.format(analytics.getMovingAverageProfitCents(asOf, 30)));
+        values[2].setText("€ " + Money.format(analytics.getMovingAverageProfitCents(asOf, 90)));
+        values[3].setText("€ " + Money.format(analytics.getYearToDateProfitCents(asOf)));
+        values[4].setText("€ " + Money.format(analytics.getMonthOverMonthCents(month)));
+        values[5].setText("€ " + Money.format(analytics.getYearOverYearCents(month)));
+        DailyEntry best = analytics.getBestDay(yearStart, asOf);
+        DailyEntry worst = analytics.getWorstDay(yearStart, asOf);
+        values[6].setText(best == null ? "-" : best.getDate().format(formatter) + "  (€ " + Money.format(best.getProfitCents()) + ")");
+        values[7].setText(worst == null ? "-" : worst.getDate().format(formatter) + "  (€ " + Money.format(worst.getProfitCents()) + ")");
+    }
 
-        gbc.gridx = 0;
-        gbc.gridy = 1;
-        inputPanel.add(new JLabel("Select Year:"), gbc);
-        gbc.gridx = 1;
-        inputPanel.add(yearSpinner, gbc);
+    public void showMonthlyProfitSummary() {
+        YearMonth month = showMonthDialog();
+        if (month == null) return;
 
-        int result = JOptionPane.showConfirmDialog(null, inputPanel, "Select Month and Year",
-                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        String title = MONTHS[month.getMonthValue() - 1] + " " + month.getYear();
 
-        if (result != JOptionPane.OK_OPTION) return;
+        // No summary means no table and no journaled entries; a database error is reported
+        // by runInBackground
+        DatabaseManager db = new DatabaseManager();
+        CompletableFuture<MonthlySummary> summaryFuture = AsyncDatabaseManager.getInstance().submit(
+                () -> db.findMonthlySummary(month));
+
+        runInBackground("Calculating profit for " + title + "...", summaryFuture, summary -> {
+            if (summary == null) {
+                JOptionPane.showMessageDialog(shell.getFrame(),
+                        "Table for " + title + " does not exist.",
+                        "Missing Table", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            showProfitSummary(title, summary);
+        });
+    }
 
-        // Get selected values
-        int selectedMonth = monthCombo.getSelectedIndex() + 1;
-        int selectedYear = (Integer) yearSpinner.getValue();
-        LocalDate selectedDate = LocalDate.of(selectedYear, selectedMonth, 1);
-        String tableName = DatabaseManager.getMonthlyTableName(selectedDate);
+    // Shows the total profit of a month in green/red, with the running balance
+    private void showProfitSummary(String title, MonthlySummary summary) {
+        long totalProfit = summary.getTotalProfitCents();
+        // Create a styled label to show the result with color
+        JLabel profitLabel = new JLabel();
+        profitLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
+        profitLabel.setHorizontalAlignment(SwingConstants.CENTER);
+
+        String profitColor = totalProfit >= 0 ? "green" : "red";
+        String balanceColor = summary.getClosingBalanceCents() >= 0 ? "green" : "red";
+        String profitText = String.format(
+                "<html><div style='text-align:center;'>Total Profit for <b>%s</b><br>" +
+                        "<span style='color:%s;'>%.2f €</span><br><br>" +
+                        "<span style='font-weight:normal;'>Revenue %.2f € &middot; Expense %.2f € &middot; %d days</span><br>" +
+                        "<span style='font-weight:normal;'>Carried over %.2f € &rarr; balance </span>" +
+                        "<span style='color:%s;'>%.2f €</span></div></html>",
+                title, profitColor, Money.toBigDecimal(totalProfit),
+                Money.toBigDecimal(summary.getTotalRevenueCents()), Money.toBigDecimal(summary.getTotalExpenseCents()),
+                summary.getDayCount(), Money.toBigDecimal(summary.getCarryOverCents()), balanceColor,
+                Money.toBigDecimal(summary.getClosingBalanceCents())
+        );
 
-        DatabaseManager db = new DatabaseManager();
+        profitLabel.setText(profitText);
 
-        if (!db.doesMonthlyTableExist(tableName)) {
-            JOptionPane.showMessageDialog(null,
-                    "Table for " + months[selectedMonth - 1] + " " + selectedYear + " does not exist.",
-                    "Missing Table", JOptionPane.WARNING_MESSAGE);
-            return;
-        }
+        // Wrap label in panel for margin
+        JPanel profitPanel = new JPanel(new BorderLayout());
+        profitPanel.setBorder(BorderFactory.createEmptyBorder(15, 30, 15, 30));
+        profitPanel.add(profitLabel, BorderLayout.CENTER);
 
-        Double totalProfit = db.getTotalProfitFromTable(tableName);
-
-        if (totalProfit != null) {
-            // Create a styled label to show the result with color
-            JLabel profitLabel = new JLabel();
-            profitLabel.setFont(new Font("Segoe UI", Font.BOLD, 16));
-            profitLabel.setHorizontalAlignment(SwingConstants.CENTER);
-
-            String profitColor = totalProfit >= 0 ? "green" : "red";
-            String profitText = String.format(
-                    "<html><div style='text-align:center;'>Total Profit for <b>%s %d</b><br>" +
-                            "<span style='color:%s;'>%.2f €</span></div></html>",
-                    months[selectedMonth - 1], selectedYear, profitColor, totalProfit
-            );
-
-            profitLabel.setText(profitText);
-
-            // Wrap label in panel for margin
-            JPanel profitPanel = new JPanel(new BorderLayout());
-            profitPanel.setBorder(BorderFactory.createEmptyBorder(15, 30, 15, 30));
-            profitPanel.add(profitLabel, BorderLayout.CENTER);
-
-            JOptionPane.showMessageDialog(null, profitPanel, "Monthly Profit Summary",
-                    JOptionPane.INFORMATION_MESSAGE);
-        } else {
-            JOptionPane.showMessageDialog(null,
-                    "Could not retrieve profit data for the selected month.",
-                    "Data Error", JOptionPane.ERROR_MESSAGE);
-        }
+        JOptionPane.showMessageDialog(shell.getFrame(), profitPanel, "Monthly Profit Summary",
+                JOptionPane.INFORMATION_MESSAGE);
     }
 
     public void showUpdateDailyEntryDialog() {
-        // --- DATE PICKER ---
-        UtilDateModel model = new UtilDateModel();
-        model.setValue(new Date());
-        Properties p = new Properties();
-        p.put("text.today", "Today");
-        p.put("text.month", "Month");
-        p.put("text.year", "Year");
-        JDatePanelImpl datePanel = new JDatePanelImpl(model, p);
-        JDatePickerImpl datePicker = new JDatePickerImpl(datePanel, new DateLabelFormatter());
-
-        // --- INPUT FIELDS ---
-        JFormattedTextField revenueField = new JFormattedTextField();
-        revenueField.setColumns(10);
-        JFormattedTextField expenseField = new JFormattedTextField();
-        expenseField.setColumns(10);
-
-        // --- PANEL LAYOUT ---
-        JPanel panel = new JPanel(new GridBagLayout());
-        panel.setBorder(BorderFactory.createTitledBorder("Update Daily Entry"));
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.insets = new Insets(10, 10, 10, 10);
-        gbc.anchor = GridBagConstraints.WEST;
-
-        gbc.gridx = 0;
-        gbc.gridy = 0;
-        panel.add(new JLabel("Select Date:"), gbc);
-        gbc.gridx = 1;
-        panel.add(datePicker, gbc);
-
-        gbc.gridx = 0;
-        gbc.gridy = 1;
-        panel.add(new JLabel("New Revenue (€):"), gbc);
-        gbc.gridx = 1;
-        panel.add(revenueField, gbc);
-
-        gbc.gridx = 0;
-        gbc.gridy = 2;
-        panel.add(new JLabel("New Expense (€):"), gbc);
-        gbc.gridx = 1;
-        panel.add(expenseField, gbc);
+        if (updateForm == null) {
+            updateForm = createEntryForm("Update Daily Entry", "New Revenue (€):", "New Expense (€):");
+        }
+        EntryForm form = updateForm;
+        form.reset();
 
         // --- SHOW DIALOG ---
         int result = JOptionPane.showConfirmDialog(
-                null,
-                panel,
+                shell.getFrame(),
+                form.panel,
                 "Update Daily Entry",
                 JOptionPane.OK_CANCEL_OPTION,
                 JOptionPane.PLAIN_MESSAGE
@@ -496,86 +512,188 @@ public class BalanceAppGUI {
 
         if (result == JOptionPane.OK_OPTION) {
             try {
-                Date selectedDate = (Date) datePicker.getModel().getValue();
+                Date selectedDate = form.date.getValue();
                 if (selectedDate == null) throw new Exception("Date is required");
 
                 LocalDate date = selectedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-                double revenue = Double.parseDouble(revenueField.getText().trim());
-                double expense = Double.parseDouble(expenseField.getText().trim());
+                long revenue = Money.parse(form.revenue.getText().trim());
+                long expense = Money.parse(form.expense.getText().trim());
 
                 DailyEntry updatedEntry = new DailyEntry(date, revenue, expense);
-                DatabaseManager db = new DatabaseManager();
                 String tableName = DatabaseManager.getMonthlyTableName(date);
 
-                boolean success = db.updateEntryInMonthlyTable(updatedEntry, tableName);
-
-                if (success) {
-                    JOptionPane.showMessageDialog(null, "Entry updated successfully.");
-                } else {
-                    JOptionPane.showMessageDialog(null, "Failed to update entry. Entry for the date may not exist.", "Update Failed", JOptionPane.WARNING_MESSAGE);
-                }
+                runInBackground("Updating entry...",
+                        AsyncDatabaseManager.getInstance().updateEntryInMonthlyTable(updatedEntry, tableName),
+                        success -> {
+                            if (success) {
+                                updateAnalytics(updatedEntry);
+                                JOptionPane.showMessageDialog(shell.getFrame(), "Entry updated successfully.");
+                            } else {
+                                JOptionPane.showMessageDialog(shell.getFrame(), "Failed to update entry. Entry for the date may not exist.", "Update Failed", JOptionPane.WARNING_MESSAGE);
+                            }
+                        });
 
             } catch (Exception e) {
-                JOptionPane.showMessageDialog(null, "Error: " + e.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(shell.getFrame(), "Error: " + e.getMessage(), "Input Error", JOptionPane.ERROR_MESSAGE);
             }
         }
     }
 
 
+    // Lists every month with its revenue, expense, profit and day count (one query) and opens the chosen one
     public void showAvailableMonthsPanel() {
-        DatabaseManager db = new DatabaseManager();
-        List<String> tables = db.getExistingMonthlyTables();
+        runInBackground("Loading months...",
+                AsyncDatabaseManager.getInstance().getMonthTotals(),
+                this::showAvailableMonths);
+    }
 
-        if (tables.isEmpty()) {
-            JOptionPane.showMessageDialog(null, "No months with data found.");
+    // Lets the user pick one of the months (double-click or OK) and opens it
+    private void showAvailableMonths(List<MonthlySummary> months) {
+        if (months.isEmpty()) {
+            JOptionPane.showMessageDialog(shell.getFrame(), "No months with data found.");
             return;
         }
 
-        // Convert table names into formatted names for display
-        DefaultListModel<String> listModel = new DefaultListModel<>();
-        Map<String, String> tableMap = new HashMap<>(); // displayName -> tableName
+        MonthTotalsTableModel model = new MonthTotalsTableModel(months, MONTHS);
+        JTable monthTable = new JTable(model);
+        monthTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        monthTable.setRowHeight(24);
+        monthTable.setDefaultRenderer(String.class, BALANCE_RENDERER);
+        monthTable.getTableHeader().setReorderingAllowed(false);
+
+        // Latest month selected and in view
+        int last = model.getRowCount() - 1;
+        monthTable.setRowSelectionInterval(last, last);
+        monthTable.scrollRectToVisible(monthTable.getCellRect(last, 0, true));
+
+        JScrollPane scrollPane = new JScrollPane(monthTable);
+        scrollPane.setPreferredSize(new Dimension(560, 360));
 
-        for (String table : tables) {
-            String formatted = db.formatTableName(table); // e.g. "May 2025"
-            listModel.addElement(formatted);
-            tableMap.put(formatted, table); // store mapping
+        JOptionPane pane = new JOptionPane(scrollPane, JOptionPane.PLAIN_MESSAGE, JOptionPane.OK_CANCEL_OPTION);
+        JDialog dialog = pane.createDialog(shell.getFrame(), "Available Months");
+        monthTable.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && monthTable.rowAtPoint(e.getPoint()) >= 0) {
+                    pane.setValue(JOptionPane.OK_OPTION);
+                }
+            }
+        });
+        dialog.setVisible(true);
+        dialog.dispose();
+
+        if (Integer.valueOf(JOptionPane.OK_OPTION).equals(pane.getValue())) {
+            int row = monthTable.getSelectedRow();
+            if (row >= 0) {
+                YearMonth month = model.getMonth(monthTable.convertRowIndexToModel(row)).getMonth();
+                showMonthlyBalanceTable2(DatabaseManager.getMonthlyTableName(month.atDay(1)));
+            } else {
+                JOptionPane.showMessageDialog(shell.getFrame(), "Please select a month.");
+            }
         }
+    }
 
-        // Create the list
-        JList<String> monthList = new JList<>(listModel);
-        monthList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    // Imports daily entries from a CSV file, showing progress while the import runs
+    public void showImportCsvDialog() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import CSV");
+        chooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV files", "csv", "txt"));
+        if (chooser.showOpenDialog(shell.getFrame()) != JFileChooser.APPROVE_OPTION) return;
+
+        java.nio.file.Path file = chooser.getSelectedFile().toPath();
+        CsvImporter importer = new CsvImporter(new DatabaseManager());
+
+        // --- PROGRESS DIALOG ---
+        JDialog dialog = new JDialog(shell.getFrame(), "Importing " + file.getFileName(), true);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setPreferredSize(new Dimension(400, 28));
+        JLabel statusLabel = new JLabel("Starting...");
+        statusLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+
+        JButton cancelBtn = new JButton("Cancel");
+        cancelBtn.addActionListener(e -> {
+            importer.cancel();
+            cancelBtn.setEnabled(false);
+            statusLabel.setText("Cancelling...");
+        });
 
-        JScrollPane scrollPane = new JScrollPane(monthList);
-        scrollPane.setPreferredSize(new Dimension(250, 200));
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        panel.add(progressBar, BorderLayout.NORTH);
+        panel.add(statusLabel, BorderLayout.CENTER);
+        JPanel buttons = new JPanel();
+        buttons.add(cancelBtn);
+        panel.add(buttons, BorderLayout.SOUTH);
+        dialog.add(panel);
+        dialog.pack();
+        dialog.setLocationRelativeTo(shell.getFrame());
+
+        // Import runs on a worker thread, progress is published back to the EDT
+        SwingWorker<ImportReport, ImportReport> worker = new SwingWorker<ImportReport, ImportReport>() {
+            @Override
+            protected ImportReport doInBackground() throws Exception {
+                return importer.importFile(file, this::publish);
+            }
 
-        int result = JOptionPane.showConfirmDialog(
-                null,
-                scrollPane,
-                "Available Months",
-                JOptionPane.OK_CANCEL_OPTION,
-                JOptionPane.PLAIN_MESSAGE
-        );
+            @Override
+            protected void process(List<ImportReport> chunks) {
+                ImportReport latest = chunks.get(chunks.size() - 1);
+                progressBar.setValue(latest.getPercentDone());
+                statusLabel.setText(String.format("%,d lines read, %,d saved, %,d rejected (%,.0f rows/s)",
+                        latest.getLinesRead(), latest.getRowsWritten(), latest.getRowsRejected(),
+                        latest.getRowsPerSecond()));
+            }
 
-        if (result == JOptionPane.OK_OPTION) {
-            String selected = monthList.getSelectedValue();
-            if (selected != null) {
-                String tableName = tableMap.get(selected);
-                showMonthlyBalanceTable2(tableName);
-            } else {
-                JOptionPane.showMessageDialog(null, "Please select a month.");
+            @Override
+            protected void done() {
+                dialog.dispose();
+                try {
+                    showImportReport(get());
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(shell.getFrame(), "Import failed: " + cause.getMessage(),
+                            "Import Error", JOptionPane.ERROR_MESSAGE);
+                }
             }
-        }
+        };
+        worker.execute();
+        dialog.setVisible(true); // Blocks until done() disposes the dialog
     }
 
-    public String showLoginFrame() {
+    // Shows the summary of a finished import and the first errors, if any
+    private void showImportReport(ImportReport report) {
+        String summary = String.format("<html><b>%s</b><br>%,d rows saved, %,d rejected, %,d failed<br>"
+                        + "%.1f s (%,.0f rows/s)%s</html>",
+                report.getSource(), report.getRowsWritten(), report.getRowsRejected(), report.getRowsFailed(),
+                report.getElapsedMillis() / 1000.0, report.getRowsPerSecond(),
+                report.isCancelled() ? "<br>Import was cancelled." : "");
 
-        final String[] usernameLoggedIn = {null};
+        if (report.getErrors().isEmpty()) {
+            JOptionPane.showMessageDialog(shell.getFrame(), summary, "Import Finished", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        StringBuilder errors = new StringBuilder();
+        for (String error : report.getErrors()) {
+            errors.append(error).append('\n');
+        }
+        if (report.getErrorCount() > report.getErrors().size()) {
+            errors.append("... ").append(report.getErrorCount() - report.getErrors().size()).append(" more");
+        }
+        JTextArea errorArea = new JTextArea(errors.toString(), 12, 50);
+        errorArea.setEditable(false);
 
-        JFrame frame = new JFrame("Login");
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setExtendedState(JFrame.MAXIMIZED_BOTH); // Full screen
-        frame.setLayout(new GridBagLayout()); // Center background
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.add(new JLabel(summary), BorderLayout.NORTH);
+        panel.add(new JScrollPane(errorArea), BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(shell.getFrame(), panel, "Import Finished", JOptionPane.WARNING_MESSAGE);
+    }
 
+    // Login card, centered on a light background; built once, kept across logouts
+    private JComponent createLoginScreen() {
         // Background panel
         JPanel background = new JPanel(new GridBagLayout());
         background.setBackground(new Color(245, 245, 245)); // Light gray
@@ -659,32 +777,29 @@ public class BalanceAppGUI {
         // Add card to background
         background.add(card);
 
-        frame.add(background);
-        frame.setVisible(true);
-
-
         loginBtn.addActionListener(e -> {
             String username = userField.getText();
             String password = new String(passField.getPassword());
-            if (DatabaseManager.validateUser(username, password)) {
-                usernameLoggedIn[0] = username; // store username
-                frame.dispose();
-            } else {
-                JOptionPane.showMessageDialog(frame, "Invalid username or password!");
-            }
+            loginBtn.setEnabled(false); // no double submits while the check runs
+
+            runInBackground("Logging in...",
+                    AsyncDatabaseManager.getInstance().validateUser(username, password),
+                    valid -> {
+                        loginBtn.setEnabled(true);
+                        if (valid) {
+                            passField.setText(""); // not kept for the next login
+                            onLogin.accept(username);
+                        } else {
+                            JOptionPane.showMessageDialog(shell.getFrame(), "Invalid username or password!");
+                        }
+                    },
+                    () -> loginBtn.setEnabled(true));
         });
 
         // Add user button
-        addUserBtn.addActionListener(e -> showAddUserDialog(frame));
-
-        // Wait until frame is disposed
-        while (frame.isDisplayable()) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException ignored) {}
-        }
+        addUserBtn.addActionListener(e -> showAddUserDialog(shell.getFrame()));
 
-        return usernameLoggedIn[0];
+        return background;
     }
 
 
@@ -720,12 +835,90 @@ public class BalanceAppGUI {
                 return;
             }
 
-            if (DatabaseManager.addUser(username, password)) {
-                JOptionPane.showMessageDialog(parent, "User added successfully!");
-            } else {
-                JOptionPane.showMessageDialog(parent, "Error adding user (maybe username exists).", "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            runInBackground("Adding user...",
+                    AsyncDatabaseManager.getInstance().addUser(username, password),
+                    added -> {
+                        if (added) {
+                            JOptionPane.showMessageDialog(parent, "User added successfully!");
+                        } else {
+                            JOptionPane.showMessageDialog(parent, "Error adding user (maybe username exists).", "Error", JOptionPane.ERROR_MESSAGE);
+                        }
+                    });
         }
     }
 
+    // Runs a database call off the EDT. If it takes longer than a moment a small progress
+    // dialog with a Cancel button is shown; onSuccess runs on the EDT with the result.
+    private <T> void runInBackground(String message, CompletableFuture<T> future, Consumer<T> onSuccess) {
+        runInBackground(message, future, onSuccess, null);
+    }
+
+    // Same, with a callback on the EDT when the call fails or is cancelled
+    private <T> void runInBackground(String message, CompletableFuture<T> future, Consumer<T> onSuccess,
+                                     Runnable onFailure) {
+        // Only build and show the dialog for calls that are actually slow, avoids flicker
+        JDialog[] progressDialog = {null};
+        javax.swing.Timer showTimer = new javax.swing.Timer(300, e -> {
+            if (future.isDone()) return;
+            progressDialog[0] = createProgressDialog(message, future);
+            progressDialog[0].setVisible(true);
+        });
+        showTimer.setRepeats(false);
+        showTimer.start();
+
+        future.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            showTimer.stop();
+            if (progressDialog[0] != null) progressDialog[0].dispose();
+
+            if (error == null) {
+                onSuccess.accept(result);
+                return;
+            }
+            if (onFailure != null) onFailure.run();
+            if (future.isCancelled()) return; // user pressed Cancel
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            String reason = cause instanceof AsyncDatabaseManager.WriteTimeoutException
+                    ? "The database did not answer in time. The change may still have been saved; reload to check."
+                    : cause instanceof TimeoutException ? "The database did not answer in time." : cause.getMessage();
+            JOptionPane.showMessageDialog(shell.getFrame(), "Database error: " + reason,
+                    "Database Error", JOptionPane.ERROR_MESSAGE);
+        }));
+    }
+
+    // Non-modal "working" dialog; the EDT stays free while it is shown
+    private JDialog createProgressDialog(String message, Future<?> future) {
+        JDialog dialog = new JDialog(shell.getFrame(), "Please wait", false);
+        dialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        dialog.setAlwaysOnTop(true); // stay visible above the fullscreen frames
+
+        JProgressBar bar = new JProgressBar();
+        bar.setIndeterminate(true);
+        bar.setPreferredSize(new Dimension(280, 20));
+
+        JLabel label = new JLabel(message);
+        label.setFont(new Font("Segoe UI", Font.PLAIN, 14));
+
+        JButton cancelBtn = new JButton("Cancel");
+        cancelBtn.addActionListener(e -> {
+            if (!future.cancel(true)) { // a write that has started is left to finish
+                cancelBtn.setEnabled(false);
+                label.setText("Saving, please wait...");
+            }
+        });
+
+        JPanel panel = new JPanel(new BorderLayout(10, 10));
+        panel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+        panel.add(label, BorderLayout.NORTH);
+        panel.add(bar, BorderLayout.CENTER);
+        JPanel buttons = new JPanel();
+        buttons.add(cancelBtn);
+        panel.add(buttons, BorderLayout.SOUTH);
+
+        dialog.add(panel);
+        dialog.pack();
+        dialog.setLocationRelativeTo(shell.getFrame());
+        return dialog;
+    }
+
 }
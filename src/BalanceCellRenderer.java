@@ -0,0 +1,52 @@
+import javax.swing.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+
+// Shared renderer for the balance tables: zebra rows, centered text and green/red profit.
+// Colours are constants and the profit sign comes from the model's numbers, so painting a
+// cell allocates nothing and parses nothing.
+public class BalanceCellRenderer extends DefaultTableCellRenderer {
+
+    private static final Color EVEN_ROW = new Color(250, 250, 250); // light gray
+    private static final Color ODD_ROW = Color.WHITE;
+    private static final Color SELECTED = new Color(200, 220, 255); // highlight blue
+    private static final Color POSITIVE = new Color(0, 128, 0); // green
+    private static final Color NEGATIVE = Color.RED;
+
+    private static final int PROFIT_COLUMN = 3;
+
+    public BalanceCellRenderer() {
+        setHorizontalAlignment(CENTER);
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(
+            JTable table, Object value, boolean isSelected,
+            boolean hasFocus, int row, int column) {
+
+        Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+
+        if (isSelected) {
+            c.setBackground(SELECTED);
+        } else {
+            c.setBackground(row % 2 == 0 ? EVEN_ROW : ODD_ROW);
+        }
+
+        Color foreground = Color.BLACK;
+        if (table.convertColumnIndexToModel(column) == PROFIT_COLUMN) {
+            long profit = 0;
+            if (table.getModel() instanceof DailyEntryTableModel) {
+                profit = ((DailyEntryTableModel) table.getModel()).getProfitCents(table.convertRowIndexToModel(row));
+            } else if (table.getModel() instanceof MonthTotalsTableModel) {
+                profit = ((MonthTotalsTableModel) table.getModel()).getProfitCents(table.convertRowIndexToModel(row));
+            }
+            if (profit > 0) {
+                foreground = POSITIVE;
+            } else if (profit < 0) {
+                foreground = NEGATIVE;
+            }
+        }
+        c.setForeground(foreground);
+        return c;
+    }
+}
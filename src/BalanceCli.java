@@ -0,0 +1,249 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Headless command line for scripted jobs (cron, nightly imports, month-end reports).
+//
+// Uses DatabaseManager directly and never touches AWT/Swing, so it runs without a display.
+// Start-up is kept short: JMX and the periodic metrics line are off, and the entry journal
+// and the month snapshot are left to the GUI (writes go straight to the database). Results
+// go to stdout; progress, errors and everything the database layer logs go to stderr, so
+// stdout can be piped.
+//
+//   java -cp BalanceApp.jar BalanceCli [--timing] <command> [arguments]
+public class BalanceCli {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: BalanceCli [--timing] <command> [arguments]",
+            "  import <file.csv>                 upsert entries from a CSV file (date, revenue, expense)",
+            "  transactions <file.csv>           add individual transactions (date, revenue, expense[, reference])",
+            "                                    to their days' totals",
+            "  export [--binary] <yyyy-MM | from to | all> [file]",
+            "                                    stream a month, a date range or everything as CSV",
+            "                                    (or the compact binary format) to the file or stdout",
+            "  summary [yyyy-MM]                 monthly totals and running balance (all months or one)",
+            "  range <from> <to>                 totals, average and best/worst day of a date range",
+            "Dates are yyyy-MM-dd. --timing prints start-up and command time to stderr.");
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    // Runs one command; returns the exit code (0 ok, 1 failed, 2 bad usage)
+    static int run(String[] args) {
+        long started = System.nanoTime();
+        PrintStream out = System.out;
+        System.setOut(System.err); // log lines of the database layer must not end up in the results
+
+        List<String> arguments = new ArrayList<>();
+        boolean timing = false;
+        for (String arg : args) {
+            if (arg.equals("--timing")) {
+                timing = true;
+            } else {
+                arguments.add(arg);
+            }
+        }
+        if (arguments.isEmpty() || arguments.get(0).equals("help") || arguments.get(0).equals("--help")) {
+            System.err.println(USAGE);
+            return arguments.isEmpty() ? 2 : 0;
+        }
+
+        System.setProperty("java.awt.headless", "true");
+        System.setProperty("balance.DB_JMX", "false");
+        System.setProperty("balance.DB_METRICS_LOG_INTERVAL_MS", "0");
+        System.setProperty("balance.DB_JOURNAL_FILE", "");
+        System.setProperty("balance.DB_SNAPSHOT_FILE", "");
+
+        int exitCode;
+        long commandStarted = 0;
+        try {
+            DatabaseManager db = new DatabaseManager();
+            commandStarted = System.nanoTime();
+            exitCode = execute(db, arguments, out);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            exitCode = 2;
+        } catch (IOException | SQLException e) {
+            System.err.println("Failed: " + e.getMessage());
+            exitCode = 1;
+        }
+        out.flush();
+
+        if (timing) {
+            long now = System.nanoTime();
+            long jvmMs = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime()
+                    - (now - started) / 1_000_000;
+            System.err.printf("startup: JVM %d ms, database layer %d ms; command %d ms%n", jvmMs,
+                    ((commandStarted == 0 ? now : commandStarted) - started) / 1_000_000,
+                    commandStarted == 0 ? 0 : (now - commandStarted) / 1_000_000);
+        }
+        return exitCode;
+    }
+
+    private static int execute(DatabaseManager db, List<String> args, PrintStream out) throws IOException, SQLException {
+        String command = args.get(0);
+        switch (command) {
+            case "import":
+                requireArguments(args, 2, 2);
+                return CsvImporter.importFromCommandLine(db, Paths.get(args.get(1)), out);
+            case "transactions":
+                requireArguments(args, 2, 2);
+                return transactions(db, Paths.get(args.get(1)), out);
+            case "export":
+                return export(db, args.subList(1, args.size()), out);
+            case "summary":
+                requireArguments(args, 1, 2);
+                return summary(db, args.size() == 2 ? YearMonth.parse(args.get(1)) : null, out);
+            case "range":
+                requireArguments(args, 3, 3);
+                return range(db, LocalDate.parse(args.get(1)), LocalDate.parse(args.get(2)), out);
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+
+    // Feeds a file of individual transactions through a TransactionAggregator
+    private static int transactions(DatabaseManager db, Path file, PrintStream out) throws IOException, SQLException {
+        long started = System.nanoTime();
+        long rejected = 0;
+        long written;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             TransactionAggregator aggregator = TransactionAggregator.fromConfig(db)) {
+            char delimiter = 0;
+            long lineNo = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (lineNo == 1) {
+                    if (line.startsWith("\uFEFF")) line = line.substring(1); // UTF-8 BOM
+                    delimiter = line.indexOf(';') >= 0 ? ';' : ',';
+                }
+                if (line.trim().isEmpty()) continue;
+                try {
+                    List<String> fields = CsvImporter.splitFields(line, delimiter);
+                    if (fields.size() < 3) {
+                        throw new IllegalArgumentException("expected date, revenue and expense but got "
+                                + fields.size() + " column(s)");
+                    }
+                    String reference = fields.size() > 3 ? fields.get(3).trim() : "";
+                    if (reference.length() > TransactionStore.MAX_REFERENCE_LENGTH) {
+                        throw new IllegalArgumentException("reference longer than "
+                                + TransactionStore.MAX_REFERENCE_LENGTH + " characters");
+                    }
+                    aggregator.add(CsvImporter.parseDate(fields.get(0)),
+                            CsvImporter.parseAmount(fields.get(1), delimiter, "revenue"),
+                            CsvImporter.parseAmount(fields.get(2), delimiter, "expense"),
+                            reference.isEmpty() ? null : reference);
+                } catch (IllegalArgumentException e) {
+                    if (lineNo == 1) continue; // header row
+                    if (++rejected <= 20) out.println("  line " + lineNo + ": " + e.getMessage());
+                }
+            }
+            aggregator.flush();
+            written = aggregator.getWrittenCount();
+        }
+
+        long ms = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        out.printf("%,d transactions written, %,d rejected in %,d ms (%,.0f tx/s)%n",
+                written, rejected, ms, written * 1000.0 / ms);
+        return rejected == 0 ? 0 : 1;
+    }
+
+    // Streams the rows in constant memory: [--binary] (yyyy-MM | from to | all) [file]
+    private static int export(DatabaseManager db, List<String> args, PrintStream out) throws IOException, SQLException {
+        List<String> rest = new ArrayList<>(args);
+        LedgerExporter.Format format = rest.remove("--binary") ? LedgerExporter.Format.BINARY : LedgerExporter.Format.CSV;
+        if (rest.isEmpty()) throw new IllegalArgumentException("Wrong number of arguments for export");
+
+        String what = rest.remove(0);
+        LocalDate from = null;
+        LocalDate to = null;
+        if (what.length() == 7) { // yyyy-MM
+            YearMonth month = YearMonth.parse(what);
+            from = month.atDay(1);
+            to = month.atEndOfMonth();
+        } else if (!what.equals("all")) {
+            if (rest.isEmpty()) throw new IllegalArgumentException("Wrong number of arguments for export");
+            from = LocalDate.parse(what);
+            to = LocalDate.parse(rest.remove(0));
+        }
+        if (rest.size() > 1) throw new IllegalArgumentException("Wrong number of arguments for export");
+        String file = rest.isEmpty() ? null : rest.get(0);
+
+        LedgerExporter exporter = LedgerExporter.fromConfig(db);
+        WritableByteChannel channel = file == null ? Channels.newChannel(out)
+                : FileChannel.open(Paths.get(file), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        long rows;
+        try {
+            rows = from == null ? exporter.exportAll(format, channel) : exporter.exportRange(from, to, format, channel);
+        } finally {
+            if (file != null) channel.close(); // stdout stays open
+        }
+        out.flush();
+        System.err.println(rows + " entries exported");
+        return 0;
+    }
+
+    private static int summary(DatabaseManager db, YearMonth month, PrintStream out) throws SQLException {
+        List<MonthlySummary> summaries = new ArrayList<>();
+        if (month == null) {
+            summaries.addAll(db.findMonthlySummaries());
+        } else {
+            MonthlySummary summary = db.findMonthlySummary(month);
+            if (summary != null) summaries.add(summary);
+        }
+
+        out.printf("%-8s %15s %15s %15s %5s %15s%n", "month", "revenue", "expense", "profit", "days", "balance");
+        for (MonthlySummary s : summaries) {
+            out.printf("%-8s %15s %15s %15s %5d %15s%n", s.getMonth(), Money.format(s.getTotalRevenueCents()),
+                    Money.format(s.getTotalExpenseCents()), Money.format(s.getTotalProfitCents()), s.getDayCount(),
+                    Money.format(s.getClosingBalanceCents()));
+        }
+        return 0;
+    }
+
+    private static int range(DatabaseManager db, LocalDate from, LocalDate to, PrintStream out) throws SQLException {
+        LedgerColumns columns = db.loadColumns(from, to);
+        LedgerAnalytics analytics = LedgerAnalytics.of(columns);
+        long revenue = columns.sumRevenueCents();
+        long expense = columns.sumExpenseCents();
+
+        out.println("range    " + from + " .. " + to);
+        out.println("days     " + columns.size());
+        out.println("revenue  " + Money.format(revenue));
+        out.println("expense  " + Money.format(expense));
+        out.println("profit   " + Money.format(revenue - expense));
+        if (!columns.isEmpty()) {
+            out.println("average  " + Money.format(Math.round((double) (revenue - expense) / columns.size())) + " per day");
+            DailyEntry best = analytics.getBestDay(from, to);
+            DailyEntry worst = analytics.getWorstDay(from, to);
+            out.println("best     " + best.getDate() + "  " + Money.format(best.getProfitCents()));
+            out.println("worst    " + worst.getDate() + "  " + Money.format(worst.getProfitCents()));
+        }
+        return 0;
+    }
+
+    private static void requireArguments(List<String> args, int min, int max) {
+        if (args.size() < min || args.size() > max) {
+            throw new IllegalArgumentException("Wrong number of arguments for " + args.get(0));
+        }
+    }
+}
@@ -0,0 +1,409 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Small bounded JDBC connection pool.
+// Connections handed out are proxies: close() returns the physical connection to the pool.
+// Each physical connection keeps its prepared statements in a StatementCache, so the same
+// SQL borrowed again on a later checkout is not parsed and prepared a second time.
+public class ConnectionPool {
+
+    private final String url;
+    private final Properties connectionProperties;
+
+    private final int maxSize;
+    private final int minIdle;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long connectionTimeoutMs;
+    private final long validationIntervalMs;
+    private final String validationQuery;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>(); // most recently used first
+
+    private int total;       // physical connections open or being opened
+    private int waiters;     // threads blocked in getConnection()
+    private long acquireCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private long timeoutCount;
+    private boolean closed;
+
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+
+    private final int statementCacheSize; // per connection, 0 = off
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final LongAdder statementEvictions = new LongAdder();
+
+    private final ScheduledExecutorService housekeeper;
+
+    // Query timeout in seconds for statements opened on the current thread, 0 = none
+    private static final ThreadLocal<Integer> QUERY_TIMEOUT = ThreadLocal.withInitial(() -> 0);
+
+    public ConnectionPool(String url, String user, String password,
+                          int maxSize, int minIdle, long idleTimeoutMs, long maxLifetimeMs,
+                          long connectionTimeoutMs, long validationIntervalMs, String validationQuery,
+                          int statementCacheSize, boolean serverPreparedStatements) {
+        if (maxSize < 1) throw new IllegalArgumentException("Pool size must be at least 1");
+        this.url = url;
+        this.connectionProperties = new Properties();
+        if (user != null) connectionProperties.setProperty("user", user);
+        if (password != null) connectionProperties.setProperty("password", password);
+        if (serverPreparedStatements) {
+            // Prepare once on the server, later executions only send the parameters
+            connectionProperties.setProperty("useServerPrepStmts", "true");
+        }
+        this.statementCacheSize = Math.max(0, statementCacheSize);
+        this.maxSize = maxSize;
+        this.minIdle = Math.max(0, Math.min(minIdle, maxSize));
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.validationIntervalMs = validationIntervalMs;
+        this.validationQuery = validationQuery == null || validationQuery.trim().isEmpty() ? null : validationQuery.trim();
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "balance-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMs, 30_000));
+        housekeeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    // Borrows a connection, waiting up to the connection timeout if the pool is exhausted
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) throw new SQLException("Connection pool is closed");
+
+                    candidate = idle.pollFirst();
+                    if (candidate != null) break;
+
+                    if (total < maxSize) {
+                        total++; // reserve the slot, open outside the lock
+                        create = true;
+                        break;
+                    }
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeoutCount++;
+                        throw new SQLTransientConnectionException("Timed out after " + connectionTimeoutMs
+                                + " ms waiting for a database connection (pool size " + maxSize + ")");
+                    }
+                    waiters++;
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waiters--;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                try {
+                    candidate = new PooledConnection(DriverManager.getConnection(url, connectionProperties));
+                } catch (SQLException e) {
+                    discardSlot();
+                    throw e;
+                }
+            } else if (!isUsable(candidate)) {
+                destroy(candidate);
+                continue; // try the next idle connection or open a new one
+            }
+
+            recordAcquire(System.nanoTime() - start);
+            return candidate.lend();
+        }
+    }
+
+    // Opens connections until at least minIdle are idle (used to warm the pool up ahead of time)
+    public void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || idle.size() >= minIdle || total >= maxSize) return;
+                total++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                PooledConnection pc = new PooledConnection(DriverManager.getConnection(url, connectionProperties));
+                giveBack(pc);
+            } catch (SQLException e) {
+                discardSlot();
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    // Distribution of the time getConnection() took (waiting plus opening a connection)
+    public LatencyHistogram getAcquireLatency() {
+        return acquireLatency;
+    }
+
+    public PoolStats getStats() {
+        lock.lock();
+        try {
+            int idleCount = idle.size();
+            return new PoolStats(total - idleCount, idleCount, total, maxSize, waiters,
+                    acquireCount, TimeUnit.NANOSECONDS.toMillis(totalWaitNanos),
+                    TimeUnit.NANOSECONDS.toMillis(maxWaitNanos), timeoutCount,
+                    statementHits.sum(), statementMisses.sum(), statementEvictions.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Limits every statement the current thread opens from now on to the given time on the
+    // server (the driver cancels it and the call fails with SQLTimeoutException); 0 lifts it
+    public static void setThreadQueryTimeout(int seconds) {
+        QUERY_TIMEOUT.set(Math.max(0, seconds));
+    }
+
+    // Closes idle connections; borrowed ones are closed when they are returned
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        housekeeper.shutdownNow();
+        for (PooledConnection pc : toClose) {
+            destroy(pc);
+        }
+    }
+
+    private void recordAcquire(long waitedNanos) {
+        acquireLatency.recordNanos(waitedNanos);
+        lock.lock();
+        try {
+            acquireCount++;
+            totalWaitNanos += waitedNanos;
+            if (waitedNanos > maxWaitNanos) maxWaitNanos = waitedNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        long now = System.currentTimeMillis();
+        if (pc.isExpired(now)) return false;
+        if (now - pc.lastReturned < validationIntervalMs) return true;
+        try {
+            if (validationQuery == null) {
+                return pc.physical.isValid(5);
+            }
+            try (Statement stmt = pc.physical.createStatement()) {
+                stmt.setQueryTimeout(5);
+                stmt.execute(validationQuery);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Called by the proxy when the borrower closes its connection
+    private void release(PooledConnection pc) {
+        boolean reusable = !pc.isExpired(System.currentTimeMillis());
+        try {
+            if (pc.physical.isClosed()) {
+                reusable = false;
+            } else if (!pc.physical.getAutoCommit()) {
+                pc.physical.rollback(); // never leak an open transaction to the next borrower
+                pc.physical.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+
+        if (reusable) {
+            giveBack(pc);
+        } else {
+            destroy(pc);
+        }
+    }
+
+    private void giveBack(PooledConnection pc) {
+        lock.lock();
+        try {
+            if (!closed) {
+                pc.lastReturned = System.currentTimeMillis();
+                idle.addFirst(pc);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        destroy(pc);
+    }
+
+    private void destroy(PooledConnection pc) {
+        if (pc.statements != null) {
+            pc.statements.closeAll();
+        }
+        try {
+            pc.physical.close();
+        } catch (SQLException ignored) {
+        }
+        discardSlot();
+    }
+
+    private void discardSlot() {
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Housekeeping: drop connections idle too long (keeping minIdle) or past their max lifetime
+    private void evictIdle() {
+        List<PooledConnection> evicted = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            // Oldest idle connections sit at the tail of the deque
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext()) {
+                PooledConnection pc = it.next();
+                boolean idleTooLong = idleTimeoutMs > 0 && now - pc.lastReturned > idleTimeoutMs
+                        && idle.size() - evicted.size() > minIdle;
+                if (idleTooLong || pc.isExpired(now)) {
+                    it.remove();
+                    evicted.add(pc);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (PooledConnection pc : evicted) {
+            destroy(pc);
+        }
+    }
+
+    // One physical connection plus its bookkeeping
+    private final class PooledConnection {
+        final Connection physical;
+        final StatementCache statements; // null when the cache is off
+        final long createdAt = System.currentTimeMillis();
+        long lastReturned = createdAt;
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize == 0 ? null
+                    : new StatementCache(physical, statementCacheSize, statementHits, statementMisses, statementEvictions);
+        }
+
+        boolean isExpired(long now) {
+            return maxLifetimeMs > 0 && now - createdAt > maxLifetimeMs;
+        }
+
+        Connection lend() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    // Per-borrow handle; a closed handle cannot touch the physical connection again
+    private final class Handle implements InvocationHandler {
+        private PooledConnection pc;
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (pc != null) {
+                        PooledConnection returning = pc;
+                        pc = null;
+                        release(returning);
+                    }
+                    return null;
+                case "isClosed":
+                    return pc == null || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + (pc == null ? "closed" : pc.physical) + "]";
+                case "prepareStatement":
+                    if (pc != null && pc.statements != null && args.length == 1) {
+                        // cached statements keep their settings, so the timeout is always set
+                        PreparedStatement stmt = pc.statements.prepare((String) args[0]);
+                        stmt.setQueryTimeout(QUERY_TIMEOUT.get());
+                        return stmt;
+                    }
+                    return invokePhysical(method, args); // other variants (generated keys, result set types) are not cached
+                default:
+                    return invokePhysical(method, args);
+            }
+        }
+
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            if (pc == null) throw new SQLException("Connection is closed");
+            Object result;
+            try {
+                result = method.invoke(pc.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            int timeout = QUERY_TIMEOUT.get();
+            if (timeout > 0 && result instanceof Statement) ((Statement) result).setQueryTimeout(timeout);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,427 @@
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Streams a CSV export of daily entries into the database.
+//
+// Three stages run concurrently with bounded queues between them, so memory use does
+// not depend on the file size:
+//   reader  – buffered read of the file, hands out chunks of raw lines
+//   parser  – parses and validates lines into DailyEntry batches
+//   writer  – upserts each batch through DatabaseManager.insertDailyEntries
+//
+// Expected columns: date, revenue, expense (extra columns are ignored).
+// Dates may be yyyy-MM-dd or dd.MM.yyyy. The delimiter is ',' or ';' – with ';' a
+// decimal comma is accepted. A header line is skipped automatically.
+public class CsvImporter {
+
+    private static final DateTimeFormatter ISO_DATE = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final DateTimeFormatter LOCAL_DATE = DateTimeFormatter.ofPattern("d.M.yyyy");
+
+    private static final int MAX_KEPT_ERRORS = 1000;
+    private static final long PROGRESS_INTERVAL_MS = 250;
+
+    private static final LineChunk END_OF_LINES = new LineChunk(0, new ArrayList<>());
+    private static final List<DailyEntry> END_OF_BATCHES = new ArrayList<>();
+
+    private final DatabaseManager db;
+    private final int linesPerChunk;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    private volatile boolean cancelled;
+
+    public CsvImporter(DatabaseManager db) {
+        this(db, 1000, DatabaseManager.getIntProperty("DB_BATCH_SIZE", 500), 8);
+    }
+
+    public CsvImporter(DatabaseManager db, int linesPerChunk, int batchSize, int queueCapacity) {
+        this.db = db;
+        this.linesPerChunk = Math.max(1, linesPerChunk);
+        this.batchSize = Math.max(1, batchSize);
+        this.queueCapacity = Math.max(1, queueCapacity);
+    }
+
+    // Asks a running import to stop; rows already written stay written
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Runs the import on the calling thread (the writer stage) and returns the final report
+    public ImportReport importFile(Path file, ImportListener listener) throws IOException {
+        Run run = new Run(file, Files.size(file), listener);
+        return run.execute();
+    }
+
+    // Raw lines plus the line number of the first one
+    private static final class LineChunk {
+        final long firstLine;
+        final List<String> lines;
+
+        LineChunk(long firstLine, List<String> lines) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+        }
+    }
+
+    // State of one import run
+    private final class Run {
+        final Path file;
+        final long totalBytes;
+        final ImportListener listener;
+
+        final BlockingQueue<LineChunk> lineQueue = new ArrayBlockingQueue<>(queueCapacity);
+        final BlockingQueue<List<DailyEntry>> batchQueue = new ArrayBlockingQueue<>(queueCapacity);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        final AtomicLong bytesRead = new AtomicLong();
+        final AtomicLong linesRead = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong errorCount = new AtomicLong();
+        long written;
+        long failed;
+        final List<String> errors = new ArrayList<>();
+
+        long startNanos;
+        long lastProgress;
+
+        Run(Path file, long totalBytes, ImportListener listener) {
+            this.file = file;
+            this.totalBytes = totalBytes;
+            this.listener = listener;
+        }
+
+        ImportReport execute() throws IOException {
+            startNanos = System.nanoTime();
+
+            Thread reader = new Thread(this::readLines, "csv-import-reader");
+            Thread parser = new Thread(this::parseLines, "csv-import-parser");
+            reader.setDaemon(true);
+            parser.setDaemon(true);
+            reader.start();
+            parser.start();
+
+            try {
+                while (true) {
+                    List<DailyEntry> batch = take(batchQueue);
+                    if (batch == null || batch == END_OF_BATCHES) break;
+                    writeBatch(batch);
+                    maybeReport(false);
+                }
+            } catch (RuntimeException | Error e) {
+                failure.compareAndSet(null, e);
+                throw e;
+            } finally {
+                cancelledOrFailed(); // unblocks the other stages if we stop early
+                joinQuietly(parser);
+                joinQuietly(reader);
+            }
+
+            Throwable error = failure.get();
+            if (error instanceof IOException) throw (IOException) error;
+            if (error != null) throw new IOException("Import failed: " + error.getMessage(), error);
+
+            ImportReport report = snapshot(true);
+            if (listener != null) listener.onProgress(report);
+            return report;
+        }
+
+        // Stage 1: buffered read of the file into chunks of lines
+        void readLines() {
+            try (InputStream in = new CountingInputStream(Files.newInputStream(file), bytesRead);
+                 BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+
+                long lineNo = 0;
+                List<String> lines = new ArrayList<>(linesPerChunk);
+                long firstLine = 1;
+                String line;
+                while ((line = br.readLine()) != null && !stopped()) {
+                    lineNo++;
+                    lines.add(line);
+                    if (lines.size() == linesPerChunk) {
+                        if (!put(lineQueue, new LineChunk(firstLine, lines))) return;
+                        lines = new ArrayList<>(linesPerChunk);
+                        firstLine = lineNo + 1;
+                    }
+                }
+                if (!lines.isEmpty() && !put(lineQueue, new LineChunk(firstLine, lines))) return;
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                put(lineQueue, END_OF_LINES);
+            }
+        }
+
+        // Stage 2: parse and validate lines, group valid entries into batches
+        void parseLines() {
+            char delimiter = 0;
+            boolean firstLine = true;
+            List<DailyEntry> batch = new ArrayList<>(batchSize);
+            try {
+                while (true) {
+                    LineChunk chunk = take(lineQueue);
+                    if (chunk == null || chunk == END_OF_LINES) break;
+
+                    for (int i = 0; i < chunk.lines.size(); i++) {
+                        long lineNo = chunk.firstLine + i;
+                        String line = chunk.lines.get(i);
+                        linesRead.incrementAndGet();
+
+                        if (firstLine) {
+                            if (line.startsWith("\uFEFF")) line = line.substring(1); // UTF-8 BOM
+                            delimiter = line.indexOf(';') >= 0 ? ';' : ',';
+                        }
+                        if (line.trim().isEmpty()) {
+                            firstLine = false;
+                            continue;
+                        }
+
+                        try {
+                            batch.add(parseLine(line, delimiter));
+                        } catch (IllegalArgumentException e) {
+                            if (firstLine) {
+                                firstLine = false; // header row
+                                continue;
+                            }
+                            rejected.incrementAndGet();
+                            addError("line " + lineNo + ": " + e.getMessage());
+                        }
+                        firstLine = false;
+
+                        if (batch.size() == batchSize) {
+                            if (!put(batchQueue, batch)) return;
+                            batch = new ArrayList<>(batchSize);
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) put(batchQueue, batch);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                put(batchQueue, END_OF_BATCHES);
+            }
+        }
+
+        // Stage 3: upsert one batch and tally the per-row results
+        void writeBatch(List<DailyEntry> batch) {
+            for (EntryWriteResult result : db.insertDailyEntries(batch)) {
+                if (result.isSuccess()) {
+                    written++;
+                } else {
+                    failed++;
+                    addError(result.getEntry().getDate() + ": " + result.getError());
+                }
+            }
+        }
+
+        void maybeReport(boolean force) {
+            if (listener == null) return;
+            long now = System.currentTimeMillis();
+            if (force || now - lastProgress >= PROGRESS_INTERVAL_MS) {
+                lastProgress = now;
+                listener.onProgress(snapshot(false));
+            }
+        }
+
+        ImportReport snapshot(boolean finished) {
+            List<String> errorsCopy;
+            synchronized (errors) {
+                errorsCopy = new ArrayList<>(errors);
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            return new ImportReport(file.getFileName().toString(), bytesRead.get(), totalBytes, linesRead.get(),
+                    written, rejected.get(), failed, elapsed, finished, cancelled, errorsCopy, errorCount.get());
+        }
+
+        void addError(String message) {
+            errorCount.incrementAndGet();
+            synchronized (errors) {
+                if (errors.size() < MAX_KEPT_ERRORS) errors.add(message);
+            }
+        }
+
+        boolean stopped() {
+            return cancelled || failure.get() != null;
+        }
+
+        void cancelledOrFailed() {
+            if (failure.get() == null && !cancelled) return;
+            lineQueue.clear();
+            batchQueue.clear();
+        }
+
+        // Bounded put that gives up once the import has been cancelled or failed
+        <T> boolean put(BlockingQueue<T> queue, T item) {
+            try {
+                while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    if (stopped()) return false;
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        <T> T take(BlockingQueue<T> queue) {
+            try {
+                while (true) {
+                    T item = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (item != null) return item;
+                    if (stopped()) return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        void joinQuietly(Thread t) {
+            try {
+                t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Parses one "date, revenue, expense" line; throws IllegalArgumentException with a readable message
+    static DailyEntry parseLine(String line, char delimiter) {
+        List<String> fields = splitFields(line, delimiter);
+        if (fields.size() < 3) {
+            throw new IllegalArgumentException("expected date, revenue and expense but got " + fields.size() + " column(s)");
+        }
+
+        LocalDate date = parseDate(fields.get(0));
+        long revenue = parseAmount(fields.get(1), delimiter, "revenue");
+        long expense = parseAmount(fields.get(2), delimiter, "expense");
+        return new DailyEntry(date, revenue, expense);
+    }
+
+    static LocalDate parseDate(String text) {
+        String value = text.trim();
+        try {
+            return value.indexOf('-') > 0 ? LocalDate.parse(value, ISO_DATE) : LocalDate.parse(value, LOCAL_DATE);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid date '" + value + "'");
+        }
+    }
+
+    // Amount in cents; more than two decimals is rejected rather than rounded
+    static long parseAmount(String text, char delimiter, String column) {
+        String value = text.trim().replace(" ", "");
+        if (value.isEmpty()) throw new IllegalArgumentException(column + " is empty");
+        if (delimiter == ';' && value.indexOf(',') >= 0) {
+            value = value.replace(".", "").replace(',', '.'); // 1.234,50 – decimal comma
+        } else {
+            value = value.replace(",", ""); // 1,234.50 – thousands separator (quoted in ',' files)
+        }
+
+        long amount;
+        try {
+            amount = Money.parse(value);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("invalid " + column + " '" + text.trim() + "'");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(column + " out of range: " + text.trim());
+        }
+        if (amount < 0 || amount > Money.MAX_CENTS) {
+            throw new IllegalArgumentException(column + " out of range: " + text.trim());
+        }
+        return amount;
+    }
+
+    // Splits a CSV line, honouring double-quoted fields
+    static List<String> splitFields(String line, char delimiter) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == delimiter && !quoted) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    // Counts bytes pulled from the file so progress can be reported against its size
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) counter.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) counter.addAndGet(n);
+            return n;
+        }
+    }
+
+    // Command line: java -cp BalanceApp.jar CsvImporter <file.csv>
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: CsvImporter <file.csv>");
+            System.exit(2);
+        }
+        System.exit(importFromCommandLine(new DatabaseManager(), Paths.get(args[0]), System.out));
+    }
+
+    // Imports the file with a progress line on stderr and the report on `out`; returns the exit code
+    static int importFromCommandLine(DatabaseManager db, Path file, PrintStream out) throws IOException {
+        CsvImporter importer = new CsvImporter(db);
+        ImportReport report = importer.importFile(file, progress ->
+                System.err.printf("\r%3d%%  %,d lines  %,d written  %,d rejected  %,.0f rows/s",
+                        progress.getPercentDone(), progress.getLinesRead(), progress.getRowsWritten(),
+                        progress.getRowsRejected(), progress.getRowsPerSecond()));
+        System.err.println();
+
+        out.println(report);
+        for (String error : report.getErrors()) {
+            out.println("  " + error);
+        }
+        if (report.getErrorCount() > report.getErrors().size()) {
+            out.println("  ... " + (report.getErrorCount() - report.getErrors().size()) + " more");
+        }
+        return report.getRowsRejected() + report.getRowsFailed() == 0 ? 0 : 1;
+    }
+}
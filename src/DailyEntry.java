@@ -1,23 +1,17 @@
 import java.time.LocalDate;
 
+// Money fields are in cents (see Money)
 public class DailyEntry {
-    private int id;
     private LocalDate date;
-    private double revenue;
-    private double expense;
-    private double profit;
+    private long revenueCents;
+    private long expenseCents;
 
-    public DailyEntry(LocalDate date, double revenue, double expense) {
+    public DailyEntry(LocalDate date, long revenueCents, long expenseCents) {
         this.date = date;
-        this.revenue = revenue;
-        this.expense = expense;
-        this.profit = revenue - expense;
+        this.revenueCents = revenueCents;
+        this.expenseCents = expenseCents;
     }
     public DailyEntry() {
-        this.date = date;
-        this.revenue = revenue;
-        this.expense = expense;
-        this.profit = revenue - expense;
     }
 
 
@@ -29,24 +23,24 @@ public class DailyEntry {
         return date;
     }
 
-    public void setExpense(double expense) {
-        this.expense = expense;
+    public void setExpenseCents(long expenseCents) {
+        this.expenseCents = expenseCents;
     }
 
-    public double getExpense() {
-        return expense;
+    public long getExpenseCents() {
+        return expenseCents;
     }
 
-    public double getRevenue() {
-        return revenue;
+    public long getRevenueCents() {
+        return revenueCents;
     }
 
-    public void setRevenue(double revenue) {
-        this.revenue = revenue;
+    public void setRevenueCents(long revenueCents) {
+        this.revenueCents = revenueCents;
     }
 
-    public double getProfit() {
-        return profit;
+    public long getProfitCents() {
+        return revenueCents - expenseCents;
     }
 }
 
@@ -0,0 +1,196 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Table model for the balance views, backed by LedgerColumns pages instead of Object[][].
+//
+// Rows live in pages of PAGE_SIZE entries. A model built from loaded columns holds all of
+// its pages as views on those columns; a range model fetches pages on demand through
+// AsyncDatabaseManager when the table first paints them and keeps at most MAX_PAGES in an
+// LRU, so memory stays flat however long the range is. A range model knows the first day of
+// every page (one int per page), so a page is fetched by its own days rather than by offset.
+// A page that fails to load shows as failed and is fetched again after RETRY_MS. Cell
+// strings are formatted once per page and cached. All methods are meant to be called on the EDT.
+public class DailyEntryTableModel extends AbstractTableModel {
+
+    public static final int PAGE_SIZE = 500;
+    private static final int MAX_PAGES = 20;
+    private static final int RETRY_MS = 5_000;
+
+    private static final String[] COLUMNS = {"Date", "Revenue (€)", "Expense (€)", "Profit (€)"};
+    private static final String LOADING = "Loading...";
+    private static final String FAILED = "Not loaded, retrying...";
+
+    // One page of rows; cells are formatted on first paint
+    private static final class Page {
+        final LedgerColumns rows;
+        String[] cells;
+
+        Page(LedgerColumns rows) {
+            this.rows = rows;
+        }
+    }
+
+    private final LocalDate from; // null for a model built from loaded columns
+    private final LocalDate to;
+    private final int rowCount;
+    private final int[] pageStarts; // epoch day of the first row of each page, range models only
+
+    private final Map<Integer, Page> pages;
+    private final Set<Integer> loading = new HashSet<>();
+    private final Map<Integer, Long> failedAt = new HashMap<>(); // page index -> time of the failure
+
+    private final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("d. M. yyyy");
+
+    private DailyEntryTableModel(LocalDate from, LocalDate to, int rowCount, int[] pageStarts, boolean bounded) {
+        this.from = from;
+        this.to = to;
+        this.rowCount = rowCount;
+        this.pageStarts = pageStarts;
+        this.pages = !bounded ? new LinkedHashMap<>() : new LinkedHashMap<Integer, Page>(MAX_PAGES * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                return size() > MAX_PAGES;
+            }
+        };
+    }
+
+    // Model over entries that are already loaded (single month views); the columns are not copied
+    public static DailyEntryTableModel of(LedgerColumns columns) {
+        DailyEntryTableModel model = new DailyEntryTableModel(null, null, columns.size(), null, false);
+        for (int start = 0; start < columns.size(); start += PAGE_SIZE) {
+            model.pages.put(start / PAGE_SIZE, new Page(columns.subRange(start, Math.min(columns.size(), start + PAGE_SIZE))));
+        }
+        return model;
+    }
+
+    // Lazy model over the entries between from and to. Only the row count and the first day of
+    // each page are read here (one pass over the dates, see DatabaseManager.forEachPageStart);
+    // call it off the EDT.
+    public static DailyEntryTableModel loadRange(DatabaseManager db, LocalDate from, LocalDate to) throws SQLException {
+        int[][] starts = {new int[16]};
+        int[] pageCount = {0};
+        int rowCount = db.forEachPageStart(from, to, PAGE_SIZE, epochDay -> {
+            if (pageCount[0] == starts[0].length) starts[0] = Arrays.copyOf(starts[0], pageCount[0] * 2);
+            starts[0][pageCount[0]++] = epochDay;
+        });
+        return new DailyEntryTableModel(from, to, rowCount, Arrays.copyOf(starts[0], pageCount[0]), true);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Page page = page(row);
+        if (page == null) {
+            if (column != 0) return "";
+            return failedAt.containsKey(row / PAGE_SIZE) ? FAILED : LOADING;
+        }
+        int index = row % PAGE_SIZE;
+        if (index >= page.rows.size()) return ""; // rows vanished since counting
+
+        if (page.cells == null) {
+            page.cells = new String[page.rows.size() * COLUMNS.length];
+        }
+        int cell = index * COLUMNS.length + column;
+        String value = page.cells[cell];
+        if (value == null) {
+            value = format(page, index, column);
+            page.cells[cell] = value;
+        }
+        return value;
+    }
+
+    // Profit of a row in cents for the renderer's colouring; 0 while the row is not loaded
+    public long getProfitCents(int row) {
+        Page page = page(row);
+        int index = row % PAGE_SIZE;
+        if (page == null || index >= page.rows.size()) return 0;
+        return page.rows.getProfitCents(index);
+    }
+
+    private String format(Page page, int index, int column) {
+        switch (column) {
+            case 0:
+                return page.rows.getDate(index).format(dateFormat);
+            case 1:
+                return Money.format(page.rows.getRevenueCents(index));
+            case 2:
+                return Money.format(page.rows.getExpenseCents(index));
+            default:
+                return Money.format(page.rows.getProfitCents(index));
+        }
+    }
+
+    // Page holding the row, or null if it is still being fetched (or failed, see requestPage)
+    private Page page(int row) {
+        int pageIndex = row / PAGE_SIZE;
+        Page page = pages.get(pageIndex);
+        if (page == null && from != null && pageIndex < pageStarts.length) {
+            Long failed = failedAt.get(pageIndex);
+            if (failed == null || System.currentTimeMillis() - failed >= RETRY_MS) {
+                requestPage(pageIndex);
+            }
+        }
+        return page;
+    }
+
+    // Fetches the page's own days: from its first day to the day before the next page starts
+    private void requestPage(int pageIndex) {
+        if (!loading.add(pageIndex)) return;
+
+        int offset = pageIndex * PAGE_SIZE;
+        int limit = Math.min(PAGE_SIZE, rowCount - offset);
+        LocalDate pageFrom = LocalDate.ofEpochDay(pageStarts[pageIndex]);
+        LocalDate pageTo = pageIndex + 1 < pageStarts.length ? LocalDate.ofEpochDay(pageStarts[pageIndex + 1] - 1) : to;
+        DatabaseManager db = new DatabaseManager();
+        AsyncDatabaseManager.getInstance().submit(() -> {
+            LedgerColumns rows = new LedgerColumns(limit);
+            db.forEachEntryPage(pageFrom, pageTo, limit, (epochDay, revenue, expense) ->
+                    rows.append(Math.toIntExact(epochDay), revenue, expense));
+            return new Page(rows);
+        }).whenComplete((page, error) -> SwingUtilities.invokeLater(() -> {
+            loading.remove(pageIndex);
+            if (error != null) {
+                error.printStackTrace();
+                // Marked failed so painting does not retry in a loop; repainted (and so
+                // fetched again) once RETRY_MS have passed
+                failedAt.put(pageIndex, System.currentTimeMillis());
+                fireTableRowsUpdated(offset, offset + limit - 1);
+                Timer retry = new Timer(RETRY_MS, e -> fireTableRowsUpdated(offset, offset + limit - 1));
+                retry.setRepeats(false);
+                retry.start();
+                return;
+            }
+            failedAt.remove(pageIndex);
+            pages.put(pageIndex, page);
+            fireTableRowsUpdated(offset, offset + limit - 1);
+        }));
+    }
+}
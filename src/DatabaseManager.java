@@ -2,175 +2,1260 @@ import javax.swing.*;
 import java.awt.*;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.sql.Date;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.YearMonth;
 import java.util.*;
 import java.util.List;
 import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
 
 public class DatabaseManager {
 
+    // SQLState for "table doesn't exist"
+    private static final String TABLE_NOT_FOUND = "42S02";
+    // SQLState of a transaction the server rolled back to break a deadlock
+    private static final String DEADLOCK = "40001";
+    private static final int DEADLOCK_ATTEMPTS = 3;
+
+    private static final String LOGIN_SQL = "SELECT password_hash FROM users WHERE username = ?";
+
+    // Matches may_25, june_25
+    private static final Pattern MONTHLY_TABLE = Pattern.compile("^[a-z]+_\\d{1,2}$");
+
     private static final String URL;
     private static final String USER;
     private static final String PASSWORD;
 
-    // Load database config from db.properties
+    // Raw db.properties, kept for the optional tuning keys
+    private static final Properties CONFIG = new Properties();
+
+    private static final ConnectionPool POOL;
+
+    // Storage layout: one table per month (default) or the partitioned ledger table
+    private static final boolean LEDGER_MODE;
+
+    // Which monthly tables exist, so DDL and metadata queries stay out of the hot paths
+    private static final SchemaCatalog CATALOG;
+
+    // Recently viewed months, patched by the writes below
+    private static final MonthCache MONTH_CACHE;
+
+    // Local write-ahead journal for insertDailyEntry; null when DB_JOURNAL_FILE is empty
+    private static final EntryJournal JOURNAL;
+
+    // Memory-mapped copy of past months; null when DB_SNAPSHOT_FILE is empty
+    private static final LedgerSnapshot SNAPSHOT;
+    private static final long SNAPSHOT_SYNC_MS;
+    private static final AtomicBoolean SNAPSHOT_SYNCING = new AtomicBoolean();
+
+    // Set once the monthly summary table is known to exist
+    private static volatile boolean summaryReady;
+    private static volatile boolean transactionsReady;
+
+    // When a row last changed (set by the database; journal replays set the time the entry was made)
+    static final String UPDATED_AT_COLUMN =
+            "updated_at TIMESTAMP(3) NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3)";
+    private static final Set<String> CHANGE_TRACKED = ConcurrentHashMap.newKeySet(); // tables known to have updated_at
+    // Last reading of the server clock: its epoch ms and System.nanoTime() at that moment (null = not read yet)
+    private static volatile long[] serverClock;
+
+    // Load database config from db.properties (another file can be given with -Dbalance.config=path,
+    // and single keys can be overridden with -Dbalance.KEY=value, e.g. -Dbalance.DB_JMX=false)
     static {
-        Properties props = new Properties();
-        try (FileInputStream fis = new FileInputStream("db.properties")) {
-            props.load(fis);
-            URL = props.getProperty("DB_URL");
-            USER = props.getProperty("DB_USER");
-            PASSWORD = props.getProperty("DB_PASSWORD");
+        try (FileInputStream fis = new FileInputStream(System.getProperty("balance.config", "db.properties"))) {
+            CONFIG.load(fis);
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("balance.DB_")) {
+                    CONFIG.setProperty(name.substring("balance.".length()), System.getProperty(name));
+                }
+            }
+            URL = CONFIG.getProperty("DB_URL");
+            USER = CONFIG.getProperty("DB_USER");
+            PASSWORD = CONFIG.getProperty("DB_PASSWORD");
         } catch (IOException e) {
             e.printStackTrace();
             throw new RuntimeException("Could not load database configuration. Please check db.properties Or Missing db.properties file! Please copy db.properties.example and configure it.");
         }
+
+        POOL = new ConnectionPool(URL, USER, PASSWORD,
+                getIntProperty("DB_POOL_MAX_SIZE", 10),
+                getIntProperty("DB_POOL_MIN_IDLE", 1),
+                getLongProperty("DB_POOL_IDLE_TIMEOUT_MS", 600_000L),
+                getLongProperty("DB_POOL_MAX_LIFETIME_MS", 1_800_000L),
+                getLongProperty("DB_POOL_CONNECTION_TIMEOUT_MS", 30_000L),
+                getLongProperty("DB_POOL_VALIDATION_INTERVAL_MS", 5_000L),
+                CONFIG.getProperty("DB_POOL_VALIDATION_QUERY", "SELECT 1"),
+                getIntProperty("DB_STATEMENT_CACHE_SIZE", 100),
+                Boolean.parseBoolean(CONFIG.getProperty("DB_SERVER_PREPARED_STATEMENTS", "true").trim()));
+
+        MONTH_CACHE = new MonthCache(getIntProperty("DB_MONTH_CACHE_ROWS", 20_000),
+                getLongProperty("DB_MONTH_CACHE_TTL_MS", 300_000L));
+
+        JOURNAL = openJournal(CONFIG.getProperty("DB_JOURNAL_FILE", "balance-journal.bin").trim());
+
+        SNAPSHOT = openSnapshot(CONFIG.getProperty("DB_SNAPSHOT_FILE", "balance-snapshot.bin").trim());
+        SNAPSHOT_SYNC_MS = getLongProperty("DB_SNAPSHOT_SYNC_MS", 300_000L);
+
+        // Journal first: its last write-behind batch still needs the pool
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (JOURNAL != null) JOURNAL.close();
+            if (SNAPSHOT != null) SNAPSHOT.close();
+            POOL.close();
+        }, "balance-pool-shutdown"));
+
+        DatabaseMetrics.install(POOL, MONTH_CACHE, JOURNAL, Boolean.parseBoolean(CONFIG.getProperty("DB_JMX", "true").trim()),
+                getLongProperty("DB_METRICS_LOG_INTERVAL_MS", 60_000L));
+
+        String storageMode = CONFIG.getProperty("DB_STORAGE_MODE", "monthly").trim();
+        if (!storageMode.equalsIgnoreCase("monthly") && !storageMode.equalsIgnoreCase("ledger")) {
+            throw new RuntimeException("Unknown DB_STORAGE_MODE '" + storageMode + "' in db.properties (use monthly or ledger)");
+        }
+        LEDGER_MODE = storageMode.equalsIgnoreCase("ledger");
+
+        CATALOG = new SchemaCatalog(getLongProperty("DB_SCHEMA_REFRESH_MS", 300_000L), LEDGER_MODE);
+    }
+
+    // Opens the journal and starts replaying entries left from an earlier run
+    private static EntryJournal openJournal(String file) {
+        if (file.isEmpty()) return null;
+        try {
+            DatabaseManager db = new DatabaseManager();
+            return new EntryJournal(Paths.get(file), getIntProperty("DB_JOURNAL_BATCH_SIZE", 500),
+                    getLongProperty("DB_JOURNAL_RETRY_MS", 1_000L), getLongProperty("DB_WRITE_BEHIND_MS", 0L),
+                    DatabaseManager::serverTimeMillis, db::writeJournaled);
+        } catch (IOException e) {
+            System.err.println("Entry journal not used, writing straight to the database: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Maps the local snapshot of past months; it is filled by the first sync
+    private static LedgerSnapshot openSnapshot(String file) {
+        if (file.isEmpty()) return null;
+        try {
+            return new LedgerSnapshot(Paths.get(file));
+        } catch (IOException e) {
+            System.err.println("Month snapshot not used, past months are read from the database: " + e.getMessage());
+            return null;
+        }
     }
 
+    static int getIntProperty(String key, int defaultValue) {
+        String value = CONFIG.getProperty(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + " in db.properties: " + value);
+            return defaultValue;
+        }
+    }
 
-    // Returns a connection to the database
+    static long getLongProperty(String key, long defaultValue) {
+        String value = CONFIG.getProperty(key);
+        if (value == null || value.trim().isEmpty()) return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for " + key + " in db.properties: " + value);
+            return defaultValue;
+        }
+    }
+
+    static String getProperty(String key, String defaultValue) {
+        return CONFIG.getProperty(key, defaultValue);
+    }
+
+
+    // Borrows a connection from the pool; closing it hands it back
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        return POOL.getConnection();
+    }
+
+    // Opens the pool's idle connections (DB_POOL_MIN_IDLE) and gets the login ready: the query is
+    // prepared into the statement cache and the SHA-256 provider is loaded. Used by the warm-up.
+    public static void warmUpConnections() {
+        POOL.fillToMinimum();
+        try (Connection conn = getConnection()) {
+            conn.prepareStatement(LOGIN_SQL).close(); // nothing to run: prepared once, it stays in the statement cache
+            readServerClock(conn); // journal entries made before the first replay get a known time
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        hashPassword("");
+    }
+
+    // Current pool counters (active, idle, waiters, wait time)
+    public static PoolStats getPoolStats() {
+        return POOL.getStats();
+    }
+
+    // Latency, row and error metrics of the database layer (also published over JMX)
+    public static DatabaseMetrics getMetrics() {
+        return DatabaseMetrics.getInstance();
+    }
+
+    // Shared schema catalog of existing monthly tables
+    public static SchemaCatalog getSchemaCatalog() {
+        return CATALOG;
+    }
+
+    // Reloads the schema catalog now instead of waiting for the refresh interval
+    public static void refreshSchemaCatalog() {
+        CATALOG.refresh();
+    }
+
+    // True when entries live in the single partitioned ledger table (DB_STORAGE_MODE=ledger)
+    public static boolean isLedgerMode() {
+        return LEDGER_MODE;
+    }
+
+    // Physical table holding the rows of this month
+    private String storageTable(YearMonth month) {
+        return LEDGER_MODE ? LedgerSchema.TABLE : getMonthlyTableName(month.atDay(1));
     }
 
     // Ensures the monthly table exists in the database (creates it if it doesn't)
     public void ensureMonthlyTable(LocalDate date) {
-        String tableName = formatMonthName(date); // Format table name based on current date
+        YearMonth month = YearMonth.from(date);
+        if (CATALOG.contains(month)) return; // Already known, skip the DDL round trip
+
+        OperationTimer timer = DatabaseMetrics.start("ensureMonthlyTable");
+        if (LEDGER_MODE) {
+            try (Connection conn = DatabaseManager.getConnection()) {
+                LedgerSchema.ensurePartition(conn, month); // Give the month its own partition
+                CATALOG.markCreated(month, getMonthlyTableName(date));
+            } catch (SQLException e) {
+                timer.failed(e);
+                e.printStackTrace();
+            } finally {
+                timer.stop();
+            }
+            return;
+        }
+
+        String tableName = getMonthlyTableName(date); // Format table name based on current date
         String sql = "CREATE TABLE IF NOT EXISTS " + tableName + " ("
                 + "id INT AUTO_INCREMENT PRIMARY KEY, "
                 + "entry_date DATE NOT NULL UNIQUE, "
                 + "revenue DECIMAL(10,2), "
                 + "expense DECIMAL(10,2), "
-                + "profit DECIMAL(10,2) GENERATED ALWAYS AS (revenue - expense) STORED"
+                + "profit DECIMAL(10,2) GENERATED ALWAYS AS (revenue - expense) STORED, "
+                + UPDATED_AT_COLUMN
                 + ")";
         try (Connection conn = DatabaseManager.getConnection();
              Statement stmt = conn.createStatement()) {
             stmt.execute(sql); // Execute the SQL to create table if it doesn't exist
+            if (stmt.getWarnings() == null) CHANGE_TRACKED.add(tableName); // created now, with updated_at
+            CATALOG.markCreated(month, tableName);
         } catch (SQLException e) {
+            timer.failed(e);
             e.printStackTrace();
+        } finally {
+            timer.stop();
         }
     }
 
     // Formats the table name as "month_yy" (e.g., june_25)
     public String formatMonthName(LocalDate date) {
-        String month = date.getMonth().toString().toLowerCase(); // Convert month to lowercase
-        int year = date.getYear() % 100; // Get last 2 digits of year
-        return month + "_" + year;
+        return getMonthlyTableName(date);
     }
 
-    // Static version of table name formatter
+    // Static version of table name formatter, the one spelling used to create and to read
+    // tables. The year is not zero-padded: 2005 gives "june_5", as tables have always been
+    // created.
     public static String getMonthlyTableName(LocalDate date) {
         String month = date.getMonth().toString().toLowerCase();  // e.g., "june"
-        String yearTwoDigits = String.valueOf(date.getYear()).substring(2); // Get "25" from "2025"
-        return month + "_" + yearTwoDigits;  // Return table name like "june_25"
+        int year = date.getYear() % 100; // Get last 2 digits of year
+        return month + "_" + year;  // Return table name like "june_25"
     }
 
-    // Inserts or updates a daily entry in the monthly table
+    // Inserts or updates a daily entry in the monthly table.
+    // With the journal on, the entry is only made durable locally here and reaches the
+    // database in the background (after DB_WRITE_BEHIND_MS, coalesced per day), so this
+    // does not wait for (or fail with) the database. Reads (months, ranges and summaries) see it
+    // right away.
     public void insertDailyEntry(DailyEntry entry) {
+        if (JOURNAL != null) {
+            requireValid(entry); // the database must take whatever is journaled
+            OperationTimer timer = DatabaseMetrics.start("journalAppend");
+            try {
+                JOURNAL.append(entry);
+                timer.rowsWritten(1);
+                return;
+            } catch (IOException e) {
+                e.printStackTrace(); // fall back to a direct write
+            } finally {
+                timer.stop();
+            }
+        }
+        // Same path as bulk writes, so the monthly summary is maintained in one place
+        insertDailyEntries(Collections.singletonList(entry));
+    }
 
-        ensureMonthlyTable(entry.getDate()); // Make sure table for this month exists
-        String tableName = formatMonthName(entry.getDate());
-        //doesMonthlyTableExist(tableName);
+    // IllegalArgumentException for an entry the database would reject for good
+    private static void requireValid(DailyEntry entry) {
+        if (entry.getDate() == null) throw new IllegalArgumentException("Date is required");
+        String rangeError = checkAmounts(entry);
+        if (rangeError != null) throw new IllegalArgumentException(rangeError);
+    }
+
+    // Entries in the local journal that have not reached the database yet
+    public static int getPendingJournalEntries() {
+        return JOURNAL == null ? 0 : JOURNAL.getPendingCount();
+    }
 
-        // SQL with ON DUPLICATE KEY UPDATE ensures only one entry per date
-        String sql = "INSERT INTO " + tableName + " (entry_date, revenue, expense) " +
+    // SQL with ON DUPLICATE KEY UPDATE ensures only one entry per date
+    private static String upsertSql(String tableName) {
+        return "INSERT INTO " + tableName + " (entry_date, revenue, expense) " +
                 "VALUES (?, ?, ?) " +
                 "ON DUPLICATE KEY UPDATE revenue = VALUES(revenue), expense = VALUES(expense)";
+    }
 
-        try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setDate(1, Date.valueOf(entry.getDate()));
-            stmt.setDouble(2, entry.getRevenue());
-            stmt.setDouble(3, entry.getExpense());
-            stmt.executeUpdate(); // Insert or update the entry
+    // Journal replay: like upsertSql, but the row's updated_at becomes the time the entry was made
+    // by the server's clock (now if that is unknown)
+    private static String journalUpsertSql(String tableName) {
+        return "INSERT INTO " + tableName + " (entry_date, revenue, expense, updated_at) " +
+                "VALUES (?, ?, ?, COALESCE(FROM_UNIXTIME(?), NOW(3))) " +
+                "ON DUPLICATE KEY UPDATE revenue = VALUES(revenue), expense = VALUES(expense), updated_at = VALUES(updated_at)";
+    }
+
+    // Inserts or updates many entries at once.
+    // Entries are grouped by monthly table; each table is written as JDBC batches in one transaction.
+    // Returns one result per entry, in the order the entries were given.
+    // Entries still in the journal are written first, so replaying them later cannot overwrite these.
+    public List<EntryWriteResult> insertDailyEntries(Collection<DailyEntry> entries) {
+        drainJournal();
+        return writeEntries(new ArrayList<>(entries), null);
+    }
+
+    // Writes entries replayed from the journal (enteredAt: when each was made by the server's
+    // clock, epoch ms, 0 = unknown).
+    // A day whose row changed in the database after its entry was made is not overwritten; its
+    // result is CONFLICT.
+    List<EntryWriteResult> writeJournaled(List<DailyEntry> entries, long[] enteredAt) {
+        return writeEntries(entries, enteredAt);
+    }
+
+    // Makes the journal write what it holds before a direct write. If the database is unreachable
+    // the direct write fails as well; otherwise the check on replay keeps the newer value.
+    private static void drainJournal() {
+        if (JOURNAL != null && JOURNAL.getPendingCount() > 0) JOURNAL.drain();
+    }
+
+    private List<EntryWriteResult> writeEntries(List<DailyEntry> input, long[] enteredAt) {
+        EntryWriteResult[] results = new EntryWriteResult[input.size()];
+
+        // Group row positions by month, oldest month first
+        Map<YearMonth, List<Integer>> byMonth = new TreeMap<>();
+        for (int i = 0; i < input.size(); i++) {
+            DailyEntry entry = input.get(i);
+            if (entry == null || entry.getDate() == null) {
+                results[i] = new EntryWriteResult(entry, EntryWriteResult.Status.FAILED, "Date is required");
+                continue;
+            }
+            String rangeError = checkAmounts(entry);
+            if (rangeError != null) {
+                results[i] = new EntryWriteResult(entry, EntryWriteResult.Status.FAILED, rangeError);
+                continue;
+            }
+            byMonth.computeIfAbsent(YearMonth.from(entry.getDate()), m -> new ArrayList<>()).add(i);
+        }
+
+        // Create missing tables once per month, not once per row
+        for (YearMonth month : byMonth.keySet()) {
+            ensureMonthlyTable(month.atDay(1));
+        }
+        ensureSummaryTable();
+
+        int batchSize = Math.max(1, getIntProperty("DB_BATCH_SIZE", 500));
+
+        OperationTimer timer = DatabaseMetrics.start(enteredAt == null ? "insertDailyEntries" : "journalReplay");
+        try (Connection conn = DatabaseManager.getConnection()) {
+            if (enteredAt != null) readServerClock(conn);
+            for (Map.Entry<YearMonth, List<Integer>> group : byMonth.entrySet()) {
+                writeMonthBatch(conn, group.getKey(), group.getValue(), input, enteredAt, results, batchSize, timer);
+            }
         } catch (SQLException e) {
+            timer.failed(e);
             e.printStackTrace();
+            fillFailed(input, results, e);
+        } finally {
+            timer.stop();
+        }
+
+        return Arrays.asList(results);
+    }
+
+    // Upserts all rows of one month in a single transaction; on error the whole month is rolled back.
+    // A transaction lost to a deadlock is run again. With enteredAt (journal replay) rows changed
+    // in the database since are left alone.
+    private void writeMonthBatch(Connection conn, YearMonth month, List<Integer> rows,
+                                 List<DailyEntry> input, long[] enteredAt, EntryWriteResult[] results, int batchSize,
+                                 OperationTimer timer) {
+        String tableName = storageTable(month);
+        EntryWriteResult[] pending = new EntryWriteResult[rows.size()];
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                ensureChangeTracking(conn, tableName); // DDL, before the transaction
+                conn.setAutoCommit(false);
+                List<Integer> toWrite = new ArrayList<>(rows.size()); // positions in rows
+                if (enteredAt != null) {
+                    Map<LocalDate, long[]> changed = lockChangedRows(conn, tableName, month);
+                    for (int r = 0; r < rows.size(); r++) {
+                        DailyEntry entry = input.get(rows.get(r));
+                        long[] row = changed.get(entry.getDate());
+                        if (row != null && enteredAt[rows.get(r)] > 0 && row[2] > enteredAt[rows.get(r)]
+                                && (row[0] != entry.getRevenueCents() || row[1] != entry.getExpenseCents())) {
+                            pending[r] = new EntryWriteResult(entry, EntryWriteResult.Status.CONFLICT,
+                                    "changed in the database after the entry was made");
+                        } else {
+                            toWrite.add(r);
+                        }
+                    }
+                } else {
+                    for (int r = 0; r < rows.size(); r++) toWrite.add(r);
+                }
+
+                String sql = enteredAt == null ? upsertSql(tableName) : journalUpsertSql(tableName);
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    for (int start = 0; start < toWrite.size(); start += batchSize) {
+                        int end = Math.min(toWrite.size(), start + batchSize);
+                        for (int w = start; w < end; w++) {
+                            int row = rows.get(toWrite.get(w));
+                            DailyEntry entry = input.get(row);
+                            stmt.setDate(1, Date.valueOf(entry.getDate()));
+                            Money.setCents(stmt, 2, entry.getRevenueCents());
+                            Money.setCents(stmt, 3, entry.getExpenseCents());
+                            if (enteredAt != null) {
+                                stmt.setBigDecimal(4, enteredAt[row] > 0
+                                        ? BigDecimal.valueOf(enteredAt[row], 3) : null); // seconds with milliseconds
+                            }
+                            stmt.addBatch();
+                        }
+                        int[] counts = stmt.executeBatch();
+                        for (int w = start; w < end; w++) {
+                            int count = w - start < counts.length ? counts[w - start] : Statement.SUCCESS_NO_INFO;
+                            pending[toWrite.get(w)] = new EntryWriteResult(input.get(rows.get(toWrite.get(w))), statusFor(count), null);
+                        }
+                    }
+                }
+                MonthlySummaryStore.refreshMonth(conn, month, tableName); // same transaction as the rows
+                conn.commit();
+                List<DailyEntry> written = new ArrayList<>(toWrite.size());
+                for (int r = 0; r < rows.size(); r++) {
+                    results[rows.get(r)] = pending[r];
+                }
+                for (int r : toWrite) {
+                    written.add(input.get(rows.get(r)));
+                }
+                MONTH_CACHE.patch(month, written);
+                if (SNAPSHOT != null) SNAPSHOT.invalidate(month);
+                timer.rowsWritten(toWrite.size());
+            } catch (SQLException e) {
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    rollbackError.printStackTrace();
+                }
+                if (DEADLOCK.equals(e.getSQLState()) && attempt < DEADLOCK_ATTEMPTS && pauseBeforeRetry(attempt)) {
+                    continue; // the server rolled this transaction back to let the other one finish
+                }
+                timer.failed(e);
+                e.printStackTrace();
+                if (TABLE_NOT_FOUND.equals(e.getSQLState())) {
+                    CATALOG.forget(month); // Dropped behind our back
+                }
+                for (int row : rows) {
+                    results[row] = new EntryWriteResult(input.get(row), EntryWriteResult.Status.FAILED, e.getMessage(),
+                            isTransient(e));
+                }
+            } finally {
+                try {
+                    conn.setAutoCommit(true);
+                } catch (SQLException ignored) {
+                }
+            }
+            break;
         }
     }
 
-    public boolean insertDailyEntry2(DailyEntry entry) {
+    // Short random pause so two writers that deadlocked do not collide again; false if interrupted
+    private static boolean pauseBeforeRetry(int attempt) {
         try {
-            return true;  // success
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;  // failed
+            Thread.sleep(ThreadLocalRandom.current().nextLong(10, 50) * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Locks the month's rows for the rest of the transaction; returns revenue, expense and
+    // updated_at (epoch ms) of those whose change time is known, by day
+    private static Map<LocalDate, long[]> lockChangedRows(Connection conn, String tableName, YearMonth month)
+            throws SQLException {
+        Map<LocalDate, long[]> rows = new HashMap<>();
+        String sql = "SELECT entry_date, revenue, expense, UNIX_TIMESTAMP(updated_at) FROM " + tableName
+                + " WHERE entry_date BETWEEN ? AND ? AND updated_at IS NOT NULL FOR UPDATE";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(month.atDay(1)));
+            stmt.setDate(2, Date.valueOf(month.atEndOfMonth()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long changedAt = rs.getBigDecimal(4).movePointRight(3).longValue();
+                    rows.put(rs.getDate(1).toLocalDate(),
+                            new long[]{Money.getCents(rs, 2), Money.getCents(rs, 3), changedAt});
+                }
+            }
+        }
+        return rows;
+    }
+
+    // Reads the database server's clock, so journal entries are timed like updated_at
+    private static void readServerClock(Connection conn) throws SQLException {
+        long before = System.nanoTime();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT UNIX_TIMESTAMP(NOW(3))")) {
+            rs.next();
+            long now = rs.getBigDecimal(1).movePointRight(3).longValue();
+            serverClock = new long[]{now, before + (System.nanoTime() - before) / 2};
+        }
+    }
+
+    // The server's time (epoch ms) going on from the last reading with this computer's monotonic
+    // clock, so a wrong or changed system time does not matter; 0 if the server was not reached yet
+    static long serverTimeMillis() {
+        long[] clock = serverClock;
+        return clock == null ? 0 : clock[0] + (System.nanoTime() - clock[1]) / 1_000_000;
+    }
+
+    // Adds updated_at to a table created before it existed (once per table and process). Rows
+    // already there keep NULL (change time unknown); later inserts and changes set it.
+    private static void ensureChangeTracking(Connection conn, String tableName) throws SQLException {
+        if (CHANGE_TRACKED.contains(tableName)) return;
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + tableName + " ADD COLUMN IF NOT EXISTS "
+                    + "updated_at TIMESTAMP(3) NULL DEFAULT NULL ON UPDATE CURRENT_TIMESTAMP(3)");
+            if (stmt.getWarnings() == null) { // added just now, not "duplicate column"
+                stmt.execute("ALTER TABLE " + tableName + " ALTER COLUMN updated_at SET DEFAULT CURRENT_TIMESTAMP(3)");
+            }
+        }
+        CHANGE_TRACKED.add(tableName);
+    }
+
+    // Like upsertSql, but adds to the day's amounts instead of replacing them
+    private static String addToDaySql(String tableName) {
+        return "INSERT INTO " + tableName + " (entry_date, revenue, expense) " +
+                "VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE revenue = revenue + VALUES(revenue), expense = expense + VALUES(expense)";
+    }
+
+    // Writes one month of aggregated transactions in a single transaction: the line items go
+    // into transaction_items and their per-day totals are added to the month's daily entries.
+    // On error nothing of the batch is written and the exception is thrown.
+    public void writeTransactions(TransactionBatch batch) throws SQLException {
+        if (batch.isEmpty()) return;
+        drainJournal(); // a journaled entry replayed later would replace the added totals
+        YearMonth month = batch.getMonth();
+        String tableName = storageTable(month);
+        ensureMonthlyTable(month.atDay(1));
+        ensureSummaryTable();
+        ensureTransactionTable();
+
+        LedgerColumns totals = batch.getDailyTotals();
+        int batchSize = Math.max(1, getIntProperty("DB_BATCH_SIZE", 500));
+
+        OperationTimer timer = DatabaseMetrics.start("writeTransactions");
+        try (Connection conn = getConnection()) {
+            ensureChangeTracking(conn, tableName);
+            conn.setAutoCommit(false);
+            try {
+                TransactionStore.insert(conn, batch, batchSize);
+                try (PreparedStatement stmt = conn.prepareStatement(addToDaySql(tableName))) {
+                    for (int i = 0; i < totals.size(); i++) {
+                        stmt.setDate(1, Date.valueOf(totals.getDate(i)));
+                        Money.setCents(stmt, 2, totals.getRevenueCents(i));
+                        Money.setCents(stmt, 3, totals.getExpenseCents(i));
+                        stmt.addBatch();
+                    }
+                    stmt.executeBatch();
+                    // Non-strict sessions (jdbcCompliantTruncation=false) clip a sum past DECIMAL(10,2) with a warning
+                    if (stmt.getWarnings() != null) {
+                        throw new SQLException("Day total of " + month + " out of range: "
+                                + stmt.getWarnings().getMessage(), "22003");
+                    }
+                }
+                MonthlySummaryStore.refreshMonth(conn, month, tableName); // same transaction as the rows
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            MONTH_CACHE.invalidate(month); // the new totals depend on what was there, reload on next read
+            if (SNAPSHOT != null) SNAPSHOT.invalidate(month);
+            timer.rowsWritten(batch.size() + totals.size());
+        } catch (SQLException e) {
+            timer.failed(e);
+            if (TABLE_NOT_FOUND.equals(e.getSQLState())) {
+                CATALOG.forget(month); // Dropped behind our back
+                transactionsReady = false;
+            }
+            throw e;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    // Creates the transaction_items table on first use
+    private void ensureTransactionTable() throws SQLException {
+        if (transactionsReady) return;
+        try (Connection conn = getConnection()) {
+            TransactionStore.createTableIfMissing(conn);
+        }
+        transactionsReady = true;
+    }
+
+    // Maps an ON DUPLICATE KEY UPDATE row count to a result status
+    private static EntryWriteResult.Status statusFor(int count) {
+        switch (count) {
+            case 1:
+                return EntryWriteResult.Status.INSERTED;
+            case 2:
+                return EntryWriteResult.Status.UPDATED;
+            case 0:
+                return EntryWriteResult.Status.UNCHANGED;
+            default:
+                return EntryWriteResult.Status.WRITTEN; // SUCCESS_NO_INFO (e.g. rewritten batches)
+        }
+    }
+
+    private static void fillFailed(List<DailyEntry> input, EntryWriteResult[] results, SQLException error) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = new EntryWriteResult(input.get(i), EntryWriteResult.Status.FAILED, error.getMessage(),
+                        isTransient(error));
+            }
+        }
+    }
+
+    // Errors that may go away on their own: connection lost (08xxx), deadlock or rollback
+    // (40xxx), timeouts and a pool that had no free connection in time
+    static boolean isTransient(SQLException e) {
+        String state = e.getSQLState();
+        if (state != null && (state.startsWith("08") || state.startsWith("40") || state.equals("HYT00"))) {
+            return true;
+        }
+        return e instanceof SQLTransientException || e instanceof SQLRecoverableException;
+    }
+
+    // Error message if an amount does not fit a DECIMAL(10,2) column, null if both do
+    private static String checkAmounts(DailyEntry entry) {
+        try {
+            Money.requireInRange(entry.getRevenueCents());
+            Money.requireInRange(entry.getExpenseCents());
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
         }
     }
 
     // Retrieves all entries from a specific monthly table
     public List<DailyEntry> getEntriesFromMonthlyTable(String tableName, Component parent) {
-        List<DailyEntry> entries = new ArrayList<>();
-
         // Show warning if the table does not exist
         if (!doesMonthlyTableExist(tableName)) {
             JOptionPane.showMessageDialog(parent, "Table '" + tableName + "' does not exist.",
                     "Missing Table", JOptionPane.WARNING_MESSAGE);
-            return entries;
+            return new ArrayList<>();
         }
 
-        String sql = "SELECT * FROM " + tableName + " ORDER BY entry_date ASC";
+        try {
+            return loadEntriesFromMonthlyTable(tableName);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(parent, "Database error: " + e.getMessage(),
+                    "Database Error", JOptionPane.ERROR_MESSAGE);
+            return new ArrayList<>();
+        }
+    }
+
+    // Same as getEntriesFromMonthlyTable but without any dialogs, safe to call off the EDT.
+    // Returns an empty list if the table does not exist.
+    public List<DailyEntry> loadEntriesFromMonthlyTable(String tableName) throws SQLException {
+        return loadMonthColumns(tableName).toEntries();
+    }
+
+    // Entries of a monthly table as read-only columns (empty if the table does not exist).
+    // Served from the month cache when the month was viewed recently, and past months from the
+    // local snapshot, both without a database round trip; entries still in the journal are included.
+    public LedgerColumns loadMonthColumns(String tableName) throws SQLException {
+        YearMonth month = parseMonthlyTableName(tableName);
+        LedgerColumns columns = month == null ? null : MONTH_CACHE.get(month);
+        if (columns == null && month != null) {
+            long version = MONTH_CACHE.beginLoad(month);
+            columns = snapshotMonth(month);
+            if (columns != null) MONTH_CACHE.put(month, columns, version);
+        }
+        if (columns == null) {
+            if (!doesMonthlyTableExist(tableName)) {
+                // The table may not exist yet because its first entries are still in the journal
+                LedgerColumns none = new LedgerColumns(1);
+                return month == null ? none.readOnly() : withPending(none, month.atDay(1), month.atEndOfMonth()).readOnly();
+            }
+            if (month == null) return queryMonth(tableName, null).readOnly();
+
+            long version = MONTH_CACHE.beginLoad(month);
+            columns = queryMonth(tableName, month);
+            MONTH_CACHE.put(month, columns, version); // database state only, pending values go on top
+        }
+        return withPending(columns, month.atDay(1), month.atEndOfMonth()).readOnly();
+    }
+
+    // A past month from the local snapshot, or null if it has to be queried. A snapshot older
+    // than DB_SNAPSHOT_SYNC_MS (or not synced yet) is still served, and synced in the background.
+    private static LedgerColumns snapshotMonth(YearMonth month) {
+        if (SNAPSHOT == null || !month.isBefore(YearMonth.now())) return null;
+        if (SNAPSHOT_SYNC_MS > 0 && System.currentTimeMillis() - SNAPSHOT.getSyncedAt() > SNAPSHOT_SYNC_MS) {
+            syncSnapshotInBackground();
+        }
+        return SNAPSHOT.get(month);
+    }
 
+    // Brings the local snapshot up to date with the database: reads the revision of every past
+    // month from the monthly summary (one query) and fetches only the months whose revision
+    // changed, in one range query per run of consecutive months. Returns the months fetched
+    // (0 as well when another sync is running).
+    public int syncSnapshot() {
+        if (SNAPSHOT == null || !SNAPSHOT_SYNCING.compareAndSet(false, true)) return 0;
+        try {
+            return updateSnapshot();
+        } finally {
+            SNAPSHOT_SYNCING.set(false);
+        }
+    }
+
+    private int updateSnapshot() {
+        ensureSummaryTable();
+        YearMonth current = YearMonth.now();
+        long since = SNAPSHOT.beginSync();
+
+        Map<YearMonth, Long> revisions;
+        OperationTimer timer = DatabaseMetrics.start("syncSnapshot");
+        try (Connection conn = getConnection()) {
+            revisions = MonthlySummaryStore.findRevisions(conn, current);
+            timer.rowsRead(revisions.size());
+        } catch (SQLException e) {
+            timer.failed(e);
+            e.printStackTrace();
+            return 0;
+        } finally {
+            timer.stop();
+        }
+
+        Map<YearMonth, Long> known = SNAPSHOT.getRevisions();
+        NavigableSet<YearMonth> changed = new TreeSet<>();
+        for (Map.Entry<YearMonth, Long> entry : revisions.entrySet()) {
+            if (!entry.getValue().equals(known.get(entry.getKey()))) changed.add(entry.getKey());
+        }
+
+        Map<YearMonth, LedgerColumns> fetched = new TreeMap<>();
+        try {
+            for (YearMonth first : changed) {
+                if (fetched.containsKey(first)) continue;
+                YearMonth last = first;
+                while (changed.contains(last.plusMonths(1))) last = last.plusMonths(1);
+                for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+                    fetched.put(month, new LedgerColumns(31));
+                }
+                queryRange(first.atDay(1), last.atEndOfMonth(), -1, getIntProperty("DB_FETCH_SIZE", 1000),
+                        "syncSnapshotMonths", rs -> appendRow(fetched.get(YearMonth.from(rs.getDate(1).toLocalDate())), rs));
+            }
+            SNAPSHOT.update(since, revisions, fetched);
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            return 0;
+        }
+
+        // Months served from the outdated copy are read again
+        for (YearMonth month : changed) {
+            if (known.containsKey(month)) MONTH_CACHE.invalidate(month);
+        }
+        return changed.size();
+    }
+
+    // Runs syncSnapshot() on a background thread unless a sync is already running
+    private static void syncSnapshotInBackground() {
+        if (SNAPSHOT_SYNCING.get()) return;
+        Thread thread = new Thread(() -> new DatabaseManager().syncSnapshot(), "balance-snapshot-sync");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Columns with the journal's pending values between from and to applied (a copy, if there are any)
+    private static LedgerColumns withPending(LedgerColumns columns, LocalDate from, LocalDate to) {
+        if (JOURNAL == null || JOURNAL.getPendingCount() == 0) return columns;
+        List<DailyEntry> pending = JOURNAL.getPending(from, to);
+        if (pending.isEmpty()) return columns;
+        LedgerColumns merged = columns.copy();
+        for (DailyEntry entry : pending) {
+            merged.put(entry.getDate(), entry.getRevenueCents(), entry.getExpenseCents());
+        }
+        return merged.readOnly();
+    }
+
+    private LedgerColumns queryMonth(String tableName, YearMonth month) throws SQLException {
+        LedgerColumns columns = new LedgerColumns(31);
+        if (LEDGER_MODE) {
+            // Same month, read from the ledger (only its partition is scanned)
+            queryRange(month.atDay(1), month.atEndOfMonth(), -1, rs -> appendRow(columns, rs));
+            return columns;
+        }
+
+        String sql = "SELECT entry_date, revenue, expense FROM " + tableName + " ORDER BY entry_date ASC";
+
+        OperationTimer timer = DatabaseMetrics.start("loadEntriesFromMonthlyTable");
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql);
              ResultSet rs = stmt.executeQuery()) {
 
-            // Loop through result set and create DailyEntry objects
             while (rs.next()) {
-                LocalDate date = rs.getDate("entry_date").toLocalDate();
-                double revenue = rs.getDouble("revenue");
-                double expense = rs.getDouble("expense");
-
-                DailyEntry entry = new DailyEntry(date, revenue, expense);
-                entries.add(entry); // Add to list
+                appendRow(columns, rs);
             }
+            timer.rowsRead(columns.size());
+        } catch (SQLException e) {
+            timer.failed(e);
+            throw e;
+        } finally {
+            timer.stop();
+        }
+
+        return columns;
+    }
 
+    // Appends the current row (entry_date, revenue, expense as columns 1-3), rows come in date order
+    private static void appendRow(LedgerColumns columns, ResultSet rs) throws SQLException {
+        columns.append(Math.toIntExact(rs.getDate(1).toLocalDate().toEpochDay()), Money.getCents(rs, 2), Money.getCents(rs, 3));
+    }
+
+    // Retrieves all entries between from and to (inclusive), across as many monthly tables as
+    // needed; entries still in the journal are included
+    public List<DailyEntry> getEntries(LocalDate from, LocalDate to) {
+        List<DailyEntry> entries = new ArrayList<>();
+        try {
+            forEachEntry(from, to, entries::add);
         } catch (SQLException e) {
             e.printStackTrace();
-            JOptionPane.showMessageDialog(parent, "Database error: " + e.getMessage(),
-                    "Database Error", JOptionPane.ERROR_MESSAGE);
         }
-
         return entries;
     }
 
-    // Checks if a specific monthly table exists in the database
-    public boolean doesMonthlyTableExist(String tableName) {
-        String sql = "SHOW TABLES LIKE ?";
+    // Streams all entries between from and to (inclusive) to the consumer in date order.
+    // Only months that have a table are queried, all of them in one UNION ALL round trip.
+    // Entries still in the journal are included. Returns the number of entries delivered.
+    public int forEachEntry(LocalDate from, LocalDate to, Consumer<DailyEntry> consumer) throws SQLException {
+        return queryEntries(from, to, -1, "forEachEntry", (epochDay, revenue, expense) ->
+                consumer.accept(new DailyEntry(LocalDate.ofEpochDay(epochDay), revenue, expense)));
+    }
+
+    // All entries between from and to (inclusive) as columns, e.g. for LedgerAnalytics;
+    // entries still in the journal are included
+    public LedgerColumns loadColumns(LocalDate from, LocalDate to) throws SQLException {
+        LedgerColumns columns = new LedgerColumns(1024);
+        queryEntries(from, to, -1, "forEachEntry", (epochDay, revenue, expense) ->
+                columns.append(Math.toIntExact(epochDay), revenue, expense));
+        return columns;
+    }
+
+    // Streams the first `limit` entries of the range in date order as primitive values, no
+    // DailyEntry objects. Pages are addressed by key, not by offset: the next page is the range
+    // from the day after the last row delivered (see forEachPageStart), so a page deep into a
+    // long range costs the same as the first one. Entries still in the journal are included.
+    public int forEachEntryPage(LocalDate from, LocalDate to, int limit, EntryRowConsumer consumer)
+            throws SQLException {
+        return queryEntries(from, to, limit, "forEachEntryPage", consumer);
+    }
+
+    // Passes the epoch day of the first entry of every page of pageSize entries between from
+    // and to to the consumer, in one pass over the dates; returns the number of entries. A page
+    // then reads only its own days: from its first day to the day before the next page's.
+    // Entries still in the journal are counted, as forEachEntryPage delivers them.
+    public int forEachPageStart(LocalDate from, LocalDate to, int pageSize, IntConsumer consumer) throws SQLException {
+        int[] row = {0};
+        return queryEntries(from, to, -1, "pageStarts", (epochDay, revenue, expense) -> {
+            if (row[0]++ % pageSize == 0) consumer.accept(Math.toIntExact(epochDay));
+        });
+    }
+
+    // Runs a date-ordered range query with the journal's pending entries merged in: a pending
+    // entry replaces its day's row or goes in between the rows. limit < 0 means all entries,
+    // otherwise it counts merged entries (the first `limit` rows of the database are enough).
+    // Returns the number of entries delivered.
+    private int queryEntries(LocalDate from, LocalDate to, int limit, String operation, EntryRowConsumer consumer)
+            throws SQLException {
+        int fetchSize = getIntProperty("DB_FETCH_SIZE", 1000);
+        List<DailyEntry> pending = JOURNAL == null || JOURNAL.getPendingCount() == 0 || from.isAfter(to)
+                ? Collections.emptyList() : JOURNAL.getPending(from, to);
+        if (pending.isEmpty()) {
+            return queryRange(from, to, limit, fetchSize, operation, rs -> consumer.accept(
+                    rs.getDate(1).toLocalDate().toEpochDay(), Money.getCents(rs, 2), Money.getCents(rs, 3)));
+        }
+
+        int max = limit < 0 ? Integer.MAX_VALUE : limit;
+        int[] next = {0}; // first pending entry not delivered yet
+        int[] count = {0};
+        queryRange(from, to, limit, fetchSize, operation, rs -> {
+            long epochDay = rs.getDate(1).toLocalDate().toEpochDay();
+            while (next[0] < pending.size() && count[0] < max
+                    && pending.get(next[0]).getDate().toEpochDay() < epochDay) {
+                DailyEntry entry = pending.get(next[0]++);
+                consumer.accept(entry.getDate().toEpochDay(), entry.getRevenueCents(), entry.getExpenseCents());
+                count[0]++;
+            }
+            if (count[0] >= max) return;
+            if (next[0] < pending.size() && pending.get(next[0]).getDate().toEpochDay() == epochDay) {
+                DailyEntry entry = pending.get(next[0]++);
+                consumer.accept(epochDay, entry.getRevenueCents(), entry.getExpenseCents());
+            } else {
+                consumer.accept(epochDay, Money.getCents(rs, 2), Money.getCents(rs, 3));
+            }
+            count[0]++;
+        });
+        while (next[0] < pending.size() && count[0] < max) {
+            DailyEntry entry = pending.get(next[0]++);
+            consumer.accept(entry.getDate().toEpochDay(), entry.getRevenueCents(), entry.getExpenseCents());
+            count[0]++;
+        }
+        return count[0];
+    }
+
+    // Streams the range in date order as primitive values for exports: forward-only, fetchSize
+    // rows per round trip, so memory use does not grow with the range (database state only,
+    // entries still in the journal are not included)
+    public int forEachEntryRow(LocalDate from, LocalDate to, int fetchSize, EntryRowConsumer consumer) throws SQLException {
+        return queryRange(from, to, -1, fetchSize, "exportEntries", rs -> consumer.accept(
+                rs.getDate(1).toLocalDate().toEpochDay(), Money.getCents(rs, 2), Money.getCents(rs, 3)));
+    }
+
+    // Number of entries between from and to (inclusive)
+    public int countEntries(LocalDate from, LocalDate to) throws SQLException {
+        if (from.isAfter(to)) return 0;
+        NavigableMap<YearMonth, String> tables = rangeTables(from, to);
+        if (tables != null && tables.isEmpty()) return 0;
+
+        String sql = "SELECT COUNT(*) FROM (" + rangeSql(tables) + ") r";
+        OperationTimer timer = DatabaseMetrics.start("countEntries");
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setString(1, tableName); // Bind table name
-            ResultSet rs = stmt.executeQuery();
-            return rs.next(); // Return true if table exists
+            bindRange(stmt, from, to, tables);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            timer.failed(e);
+            return handleRangeError(e);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    // Reads a row of a range query
+    private interface RowReader {
+        void read(ResultSet rs) throws SQLException;
+    }
+
+    // Runs a date-ordered range query; limit < 0 means all rows
+    private int queryRange(LocalDate from, LocalDate to, int limit, RowReader reader) throws SQLException {
+        return queryRange(from, to, limit, getIntProperty("DB_FETCH_SIZE", 1000),
+                limit >= 0 ? "forEachEntryPage" : "forEachEntry", reader);
+    }
+
+    private int queryRange(LocalDate from, LocalDate to, int limit, int fetchSize, String operation,
+                           RowReader reader) throws SQLException {
+        if (from.isAfter(to)) return 0;
+        NavigableMap<YearMonth, String> tables = rangeTables(from, to);
+        if (tables != null && tables.isEmpty()) return 0;
+
+        String sql = rangeSql(tables) + " ORDER BY entry_date ASC" + (limit >= 0 ? " LIMIT ?" : "");
+
+        int count = 0;
+        OperationTimer timer = DatabaseMetrics.start(operation);
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) { // forward-only, read-only (the default, and cached)
+
+            int index = bindRange(stmt, from, to, tables);
+            if (limit >= 0) stmt.setInt(index, limit);
+            stmt.setFetchSize(fetchSize); // streamed: the driver holds only this many rows
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    reader.read(rs);
+                    count++;
+                }
+            }
+        } catch (SQLException e) {
+            timer.failed(e);
+            return handleRangeError(e);
+        } finally {
+            timer.rowsRead(count);
+            timer.stop();
+        }
+        return count;
+    }
+
+    // Monthly tables the range touches; null in ledger mode (everything is in one table)
+    private NavigableMap<YearMonth, String> rangeTables(LocalDate from, LocalDate to) {
+        return LEDGER_MODE ? null : CATALOG.getTables(YearMonth.from(from), YearMonth.from(to));
+    }
+
+    // Unordered SELECT of entry_date, revenue, expense over the range
+    private static String rangeSql(NavigableMap<YearMonth, String> tables) {
+        if (tables == null) {
+            // Ledger: one range predicate, partition pruning picks the months
+            return "SELECT entry_date, revenue, expense FROM " + LedgerSchema.TABLE + " WHERE entry_date BETWEEN ? AND ?";
+        }
+
+        // One branch per month; the date predicate is pushed into each branch so only
+        // the first and last month do a partial index range scan
+        StringBuilder sql = new StringBuilder();
+        for (String tableName : tables.values()) {
+            if (sql.length() > 0) sql.append(" UNION ALL ");
+            sql.append("SELECT entry_date, revenue, expense FROM ").append(tableName)
+                    .append(" WHERE entry_date BETWEEN ? AND ?");
+        }
+        return sql.toString();
+    }
+
+    // Binds the range parameters of rangeSql; returns the next free parameter index
+    private static int bindRange(PreparedStatement stmt, LocalDate from, LocalDate to,
+                                 NavigableMap<YearMonth, String> tables) throws SQLException {
+        int index = 1;
+        if (tables == null) {
+            stmt.setDate(index++, Date.valueOf(from));
+            stmt.setDate(index++, Date.valueOf(to));
+            return index;
+        }
+        for (YearMonth month : tables.keySet()) {
+            LocalDate monthStart = month.atDay(1);
+            LocalDate monthEnd = month.atEndOfMonth();
+            stmt.setDate(index++, Date.valueOf(from.isAfter(monthStart) ? from : monthStart));
+            stmt.setDate(index++, Date.valueOf(to.isBefore(monthEnd) ? to : monthEnd));
+        }
+        return index;
+    }
+
+    private static int handleRangeError(SQLException e) throws SQLException {
+        if (TABLE_NOT_FOUND.equals(e.getSQLState())) {
+            if (LEDGER_MODE) return 0; // Nothing written yet
+            CATALOG.refresh(); // A table went away, the next call uses the fresh list
+        }
+        throw e;
+    }
+
+    // Checks if a specific monthly table exists in the database
+    public boolean doesMonthlyTableExist(String tableName) {
+        return CATALOG.containsTable(tableName); // Answered from the schema catalog
+    }
+
+    // Total profit of a month in cents, read from the monthly summary (no scan of the month)
+    public Long getTotalProfitFromTable(String tableName) {
+        YearMonth month = parseMonthlyTableName(tableName);
+        if (month == null) return null;
+
+        MonthlySummary summary = getMonthlySummary(month);
+        return summary == null ? null : summary.getTotalProfitCents();
+    }
+
+    // Totals and carry-over of one month, or null if the month has no table (or on error);
+    // entries still in the journal are included
+    public MonthlySummary getMonthlySummary(YearMonth month) {
+        try {
+            return findMonthlySummary(month);
         } catch (SQLException e) {
             e.printStackTrace();
-            return false;
+            return null;
         }
     }
 
-    public Double getTotalProfitFromTable(String tableName) {
-        String sql = "SELECT SUM(profit) AS total_profit FROM " + tableName;
+    // Same, but a database error is thrown instead of looking like a month without data.
+    // A month with entries still in the journal is summed from its columns, like getMonthTotals;
+    // a table without a summary row yet (no entries) has zero totals and carries the previous
+    // month's closing balance over.
+    public MonthlySummary findMonthlySummary(YearMonth month) throws SQLException {
+        ensureSummaryTable();
+        boolean pending = hasPending(month);
+        boolean exists = doesMonthlyTableExist(getMonthlyTableName(month.atDay(1)));
+        MonthlySummary summary;
+        OperationTimer timer = DatabaseMetrics.start("getMonthlySummary");
+        try (Connection conn = getConnection()) {
+            summary = MonthlySummaryStore.find(conn, month);
+            if (pending || summary == null && exists) {
+                MonthlySummary previous = summary != null ? null : MonthlySummaryStore.findLatestBefore(conn, month);
+                long carryOver = summary != null ? summary.getCarryOverCents()
+                        : previous == null ? 0 : previous.getClosingBalanceCents();
+                summary = new MonthlySummary(month, carryOver);
+            }
+        } catch (SQLException e) {
+            timer.failed(e);
+            throw e;
+        } finally {
+            timer.stop();
+        }
+        if (pending) summary.addColumns(loadMonthColumns(getMonthlyTableName(month.atDay(1))));
+        return summary;
+    }
 
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
+    // Summaries of all months in chronological order (empty on error)
+    public List<MonthlySummary> getMonthlySummaries() {
+        try {
+            return findMonthlySummaries();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
 
-            if (rs.next()) {
-                return rs.getDouble("total_profit");
+    // Same, but a database error is thrown instead of returning no months
+    public List<MonthlySummary> findMonthlySummaries() throws SQLException {
+        ensureSummaryTable();
+        OperationTimer timer = DatabaseMetrics.start("getMonthlySummaries");
+        try (Connection conn = getConnection()) {
+            List<MonthlySummary> summaries = MonthlySummaryStore.findAll(conn);
+            timer.rowsRead(summaries.size());
+            return summaries;
+        } catch (SQLException e) {
+            timer.failed(e);
+            throw e;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    // Totals of every existing month in chronological order, e.g. for the month list. The months
+    // come from the schema catalog and their totals from the monthly summary, all in one query
+    // instead of one lookup per month. A month with entries still in the journal is summed from
+    // its columns; a month without a summary row (an empty table) has zero totals.
+    public List<MonthlySummary> getMonthTotals() throws SQLException {
+        ensureSummaryTable();
+        NavigableSet<YearMonth> months = CATALOG.getMonths();
+        Map<YearMonth, MonthlySummary> summaries = new HashMap<>();
+
+        OperationTimer timer = DatabaseMetrics.start("getMonthTotals");
+        try (Connection conn = getConnection()) {
+            for (MonthlySummary summary : MonthlySummaryStore.findAll(conn)) {
+                summaries.put(summary.getMonth(), summary);
+            }
+            timer.rowsRead(summaries.size());
+        } catch (SQLException e) {
+            timer.failed(e);
+            throw e;
+        } finally {
+            timer.stop();
+        }
+
+        List<MonthlySummary> totals = new ArrayList<>(months.size());
+        long closing = 0;
+        for (YearMonth month : months) {
+            MonthlySummary summary = summaries.get(month);
+            boolean pending = hasPending(month);
+            if (summary == null || pending) {
+                summary = new MonthlySummary(month, summary == null ? closing : summary.getCarryOverCents());
+                if (pending) summary.addColumns(loadMonthColumns(CATALOG.getTableName(month)));
             }
+            totals.add(summary);
+            closing = summary.getClosingBalanceCents();
+        }
+        return totals;
+    }
+
+    // True if the journal holds entries of the month that are not in the database yet
+    private static boolean hasPending(YearMonth month) {
+        return JOURNAL != null && JOURNAL.getPendingCount() > 0
+                && !JOURNAL.getPending(month.atDay(1), month.atEndOfMonth()).isEmpty();
+    }
 
+    // Running balance in cents since the first entry (closing balance of the latest month)
+    public Long getCumulativeBalance() {
+        ensureSummaryTable();
+        OperationTimer timer = DatabaseMetrics.start("getCumulativeBalance");
+        try (Connection conn = getConnection()) {
+            MonthlySummary latest = MonthlySummaryStore.findLatest(conn);
+            return latest == null ? 0L : latest.getClosingBalanceCents();
         } catch (SQLException e) {
+            timer.failed(e);
             e.printStackTrace();
+            return null;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    // Recomputes the whole monthly summary table from the raw entries
+    public boolean rebuildMonthlySummaries() {
+        CATALOG.refresh();
+        Map<YearMonth, String> monthTables = new TreeMap<>();
+        for (YearMonth month : CATALOG.getMonths()) {
+            monthTables.put(month, storageTable(month));
         }
 
-        return null; // return null if error or no result
+        OperationTimer timer = DatabaseMetrics.start("rebuildMonthlySummaries");
+        try (Connection conn = getConnection()) {
+            MonthlySummaryStore.createTableIfMissing(conn);
+            conn.setAutoCommit(false);
+            try {
+                MonthlySummaryStore.rebuild(conn, monthTables);
+                conn.commit();
+                summaryReady = true;
+                timer.rowsWritten(monthTables.size());
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            timer.failed(e);
+            e.printStackTrace();
+            return false;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    // Creates the summary table on first use; a freshly created table is filled from existing data
+    private void ensureSummaryTable() {
+        if (summaryReady) return;
+        synchronized (DatabaseManager.class) {
+            if (summaryReady) return;
+            boolean created;
+            try (Connection conn = getConnection()) {
+                created = MonthlySummaryStore.createTableIfMissing(conn);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return; // try again next time
+            }
+            if (created) {
+                rebuildMonthlySummaries();
+            }
+            summaryReady = true;
+        }
     }
 
     // Fetch daily entry by date
     public DailyEntry getDailyEntry(LocalDate date) {
 
-        String tableName = formatMonthName(LocalDate.now()); // Format table name based on current date
+        String tableName = getMonthlyTableName(LocalDate.now()); // Format table name based on current date
         String sql = "SELECT revenue, expense FROM" + tableName + "WHERE date = ?";
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
@@ -179,8 +1264,8 @@ public class DatabaseManager {
             ResultSet rs = stmt.executeQuery();
 
             if (rs.next()) {
-                double revenue = rs.getDouble("revenue");
-                double expense = rs.getDouble("expense");
+                long revenue = Money.getCents(rs, "revenue");
+                long expense = Money.getCents(rs, "expense");
                 return new DailyEntry(date, revenue, expense);
             }
         } catch (SQLException e) {
@@ -191,19 +1276,73 @@ public class DatabaseManager {
 
     // Update existing daily entry
     public boolean updateEntryInMonthlyTable(DailyEntry entry, String tableName) {
-        String sql = "UPDATE " + tableName + " SET revenue = ?, expense = ? WHERE entry_date = ?";
-        try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        String target = LEDGER_MODE ? LedgerSchema.TABLE : tableName;
+        String sql = "UPDATE " + target + " SET revenue = ?, expense = ? WHERE entry_date = ?";
+        YearMonth month = LEDGER_MODE ? YearMonth.from(entry.getDate()) : parseMonthlyTableName(tableName);
+        if (JOURNAL != null) {
+            return journalUpdate(entry, tableName);
+        }
+        ensureSummaryTable();
 
-            stmt.setDouble(1, entry.getRevenue());
-            stmt.setDouble(2, entry.getExpense());
-            stmt.setDate(3, Date.valueOf(entry.getDate()));
+        OperationTimer timer = DatabaseMetrics.start("updateEntryInMonthlyTable");
+        try (Connection conn = getConnection()) {
+            ensureChangeTracking(conn, target);
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
 
-            return stmt.executeUpdate() > 0;
+                Money.setCents(stmt, 1, entry.getRevenueCents());
+                Money.setCents(stmt, 2, entry.getExpenseCents());
+                stmt.setDate(3, Date.valueOf(entry.getDate()));
+
+                boolean updated = stmt.executeUpdate() > 0;
+                if (updated && month != null) {
+                    MonthlySummaryStore.refreshMonth(conn, month, target);
+                }
+                conn.commit();
+                if (updated) {
+                    timer.rowsWritten(1);
+                    if (month != null) {
+                        MONTH_CACHE.patch(month, Collections.singletonList(entry));
+                        if (SNAPSHOT != null) SNAPSHOT.invalidate(month);
+                    }
+                }
+                return updated;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
 
         } catch (SQLException e) {
+            timer.failed(e);
             e.printStackTrace();
             return false;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    // Update through the journal (write-behind): only days that exist are updated, like the UPDATE
+    private boolean journalUpdate(DailyEntry entry, String tableName) {
+        requireValid(entry);
+        try {
+            if (JOURNAL.getPending(entry.getDate()) == null
+                    && loadMonthColumns(tableName).indexOf(entry.getDate()) < 0) {
+                return false;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+        OperationTimer timer = DatabaseMetrics.start("journalAppend");
+        try {
+            JOURNAL.append(entry);
+            timer.rowsWritten(1);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        } finally {
+            timer.stop();
         }
     }
 
@@ -226,29 +1365,27 @@ public class DatabaseManager {
         }
     }
 
+    // Existing monthly tables in chronological order (from the schema catalog)
     public List<String> getExistingMonthlyTables() {
-        List<String> tables = new ArrayList<>();
-        String sql = "SHOW TABLES";
-        try (Connection conn = DatabaseManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        return CATALOG.getTableNames();
+    }
 
-            while (rs.next()) {
-                String tableName = rs.getString(1);
-                if (tableName.matches("^[a-z]+_\\d{2}$")) { // matches may_25, june_25
-                    tables.add(tableName);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+    // Parses a table name like "may_25" into a month (assumes 2000+), or null if it isn't a monthly table
+    public static YearMonth parseMonthlyTableName(String tableName) {
+        if (tableName == null || !MONTHLY_TABLE.matcher(tableName).matches()) return null;
+        String[] parts = tableName.split("_");
+        try {
+            Month month = Month.valueOf(parts[0].toUpperCase());
+            return YearMonth.of(2000 + Integer.parseInt(parts[1]), month);
+        } catch (IllegalArgumentException e) {
+            return null; // e.g. "users_01" – right shape, not a month
         }
-        return tables;
     }
 
     public static boolean validateUser(String username, String password) {
-        String sql = "SELECT password_hash FROM users WHERE username = ?";
+        OperationTimer timer = DatabaseMetrics.start("validateUser");
         try (Connection conn = getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(LOGIN_SQL)) {
             stmt.setString(1, username);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -257,7 +1394,10 @@ public class DatabaseManager {
                 return storedHash.equals(inputHash);
             }
         } catch (SQLException e) {
+            timer.failed(e);
             e.printStackTrace();
+        } finally {
+            timer.stop();
         }
         return false;
     }
@@ -279,6 +1419,7 @@ public class DatabaseManager {
 
     public static boolean addUser(String username, String password) {
         String sql = "INSERT INTO users (username, password_hash) VALUES (?, ?)";
+        OperationTimer timer = DatabaseMetrics.start("addUser");
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
 
@@ -286,8 +1427,11 @@ public class DatabaseManager {
             stmt.setString(2, hashPassword(password));
             return stmt.executeUpdate() > 0;
         } catch (SQLException e) {
+            timer.failed(e);
             e.printStackTrace();
             return false;
+        } finally {
+            timer.stop();
         }
     }
 
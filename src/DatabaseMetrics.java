@@ -0,0 +1,277 @@
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency and error metrics of the database layer.
+//
+// Every DatabaseManager operation is timed into its own histogram (p50/p95/p99) with row
+// and error counters; failures are also counted per SQLState and connection acquire time
+// comes from the pool. Everything is published over JMX (jconsole: balanceapp) and, every
+// DB_METRICS_LOG_INTERVAL_MS, written as one log line when there was activity.
+public final class DatabaseMetrics implements DatabaseMetricsMXBean {
+
+    private static final String DOMAIN = "balanceapp";
+    private static final DatabaseMetrics INSTANCE = new DatabaseMetrics();
+
+    private final ConcurrentSkipListMap<String, OperationMetrics> operations = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, LongAdder> errorsBySqlState = new ConcurrentHashMap<>();
+    private volatile ConnectionPool pool;
+    private volatile MonthCache monthCache;
+    private volatile EntryJournal journal;
+    private volatile boolean jmxEnabled;
+    private ScheduledExecutorService logger;
+    private long lastLoggedCalls;
+
+    // Start-up milestones, -1 until reached
+    private volatile long firstScreenMillis = -1; // JVM start until the login screen is shown
+    private volatile long warmUpMillis = -1; // background warm-up of the database layer
+
+    private DatabaseMetrics() {
+    }
+
+    public static DatabaseMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    // Hooks up the pool, month cache and journal (may be null), registers the MBeans (unless
+    // jmx is false, which saves the MBean server start-up) and starts the log line (interval <= 0: no log)
+    static synchronized void install(ConnectionPool pool, MonthCache monthCache, EntryJournal journal,
+                                     boolean jmx, long logIntervalMs) {
+        INSTANCE.pool = pool;
+        INSTANCE.monthCache = monthCache;
+        INSTANCE.journal = journal;
+        if (jmx) {
+            INSTANCE.jmxEnabled = true;
+            register("type=DatabaseMetrics", INSTANCE);
+            for (OperationMetrics metrics : INSTANCE.operations.values()) {
+                register("type=DatabaseOperation,name=" + metrics.getName(), metrics);
+            }
+        }
+
+        if (logIntervalMs > 0 && INSTANCE.logger == null) {
+            INSTANCE.logger = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "balance-db-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            INSTANCE.logger.scheduleAtFixedRate(INSTANCE::logIfActive, logIntervalMs, logIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Starts timing one call of the operation
+    public static OperationTimer start(String operation) {
+        return new OperationTimer(INSTANCE.operation(operation));
+    }
+
+    // Marks the first interactive screen as shown (only the first call counts)
+    public static void recordFirstScreen() {
+        if (INSTANCE.firstScreenMillis >= 0) return;
+        long millis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        INSTANCE.firstScreenMillis = millis;
+        System.out.println("[startup] first screen after " + millis + " ms");
+    }
+
+    // Records how long the warm-up took
+    public static void recordWarmUp(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        INSTANCE.warmUpMillis = millis;
+        System.out.println("[startup] database warm-up done in " + millis + " ms");
+    }
+
+    // Metrics of one operation (created on first use)
+    public OperationMetrics operation(String name) {
+        OperationMetrics metrics = operations.get(name);
+        if (metrics == null) {
+            OperationMetrics created = new OperationMetrics(name);
+            metrics = operations.putIfAbsent(name, created);
+            if (metrics == null) {
+                metrics = created;
+                if (jmxEnabled) register("type=DatabaseOperation,name=" + name, created);
+            }
+        }
+        return metrics;
+    }
+
+    // All operations seen so far, by name
+    public Map<String, OperationMetrics> getOperations() {
+        return new TreeMap<>(operations);
+    }
+
+    static void countSqlState(SQLException e) {
+        String state = e.getSQLState() == null ? "unknown" : e.getSQLState();
+        INSTANCE.errorsBySqlState.computeIfAbsent(state, s -> new LongAdder()).increment();
+    }
+
+    @Override
+    public Map<String, Long> getErrorsBySqlState() {
+        Map<String, Long> errors = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : errorsBySqlState.entrySet()) {
+            errors.put(entry.getKey(), entry.getValue().sum());
+        }
+        return errors;
+    }
+
+    @Override
+    public long getConnectionAcquires() {
+        return pool == null ? 0 : pool.getAcquireLatency().getCount();
+    }
+
+    @Override
+    public double getConnectionAcquireP50Millis() {
+        return pool == null ? 0 : pool.getAcquireLatency().getPercentileMillis(0.50);
+    }
+
+    @Override
+    public double getConnectionAcquireP99Millis() {
+        return pool == null ? 0 : pool.getAcquireLatency().getPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getConnectionAcquireMaxMillis() {
+        return pool == null ? 0 : pool.getAcquireLatency().getMaxMillis();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return pool == null ? 0 : pool.getStats().getActive();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return pool == null ? 0 : pool.getStats().getIdle();
+    }
+
+    @Override
+    public int getConnectionWaiters() {
+        return pool == null ? 0 : pool.getStats().getWaiters();
+    }
+
+    @Override
+    public long getStatementCacheHits() {
+        return pool == null ? 0 : pool.getStats().getStatementCacheHits();
+    }
+
+    @Override
+    public long getStatementCacheMisses() {
+        return pool == null ? 0 : pool.getStats().getStatementCacheMisses();
+    }
+
+    @Override
+    public long getStatementCacheEvictions() {
+        return pool == null ? 0 : pool.getStats().getStatementCacheEvictions();
+    }
+
+    @Override
+    public long getMonthCacheHits() {
+        return monthCache == null ? 0 : monthCache.getHits();
+    }
+
+    @Override
+    public long getMonthCacheMisses() {
+        return monthCache == null ? 0 : monthCache.getMisses();
+    }
+
+    @Override
+    public int getMonthCacheRows() {
+        return monthCache == null ? 0 : monthCache.getRows();
+    }
+
+    @Override
+    public int getJournalPendingEntries() {
+        return journal == null ? 0 : journal.getPendingCount();
+    }
+
+    @Override
+    public long getJournalRejectedEntries() {
+        return journal == null ? 0 : journal.getRejectedCount();
+    }
+
+    @Override
+    public long getTimeToFirstScreenMillis() {
+        return firstScreenMillis;
+    }
+
+    @Override
+    public long getWarmUpMillis() {
+        return warmUpMillis;
+    }
+
+    // e.g. "pool 1/10 active, acquire p99 0.02 ms | getEntries 14x p50 3.1 p95 8.0 p99 8.0 ms, 412 read | errors 42S02=1"
+    @Override
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder();
+        if (pool != null) {
+            PoolStats stats = pool.getStats();
+            sb.append(String.format(Locale.ROOT, "pool %d/%d active, %d waiting, acquire p99 %.2f ms, statement cache %.0f%% hits",
+                    stats.getActive(), stats.getMaxSize(), stats.getWaiters(), getConnectionAcquireP99Millis(),
+                    stats.getStatementCacheHitRatio() * 100));
+        }
+        if (monthCache != null && monthCache.getHits() + monthCache.getMisses() > 0) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append("month cache ").append(monthCache.getHits()).append('/')
+                    .append(monthCache.getHits() + monthCache.getMisses()).append(" hits");
+        }
+        if (journal != null && journal.getPendingCount() > 0) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(journal.getPendingCount()).append(" entries waiting in the journal");
+        }
+        if (journal != null && journal.getRejectedCount() > 0) {
+            if (sb.length() > 0) sb.append(", ");
+            sb.append(journal.getRejectedCount()).append(" journal entries rejected (see ")
+                    .append(journal.getRejectedFile()).append(')');
+        }
+        for (OperationMetrics m : operations.values()) {
+            if (m.getCalls() == 0) continue;
+            if (sb.length() > 0) sb.append(" | ");
+            sb.append(String.format(Locale.ROOT, "%s %dx p50 %.2f p95 %.2f p99 %.2f ms",
+                    m.getName(), m.getCalls(), m.getP50Millis(), m.getP95Millis(), m.getP99Millis()));
+            if (m.getRowsRead() > 0) sb.append(", ").append(m.getRowsRead()).append(" read");
+            if (m.getRowsWritten() > 0) sb.append(", ").append(m.getRowsWritten()).append(" written");
+            if (m.getErrors() > 0) sb.append(", ").append(m.getErrors()).append(" failed");
+        }
+        Map<String, Long> errors = getErrorsBySqlState();
+        if (!errors.isEmpty()) {
+            sb.append(" | errors");
+            for (Map.Entry<String, Long> entry : errors.entrySet()) {
+                sb.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    // Writes the summary when anything ran since the last line
+    private void logIfActive() {
+        long calls = 0;
+        for (OperationMetrics m : operations.values()) {
+            calls += m.getCalls();
+        }
+        if (calls == lastLoggedCalls) return;
+        lastLoggedCalls = calls;
+        System.out.println("[db-metrics " + LocalTime.now().format(DateTimeFormatter.ofPattern("HH:mm:ss")) + "] " + getSummary());
+    }
+
+    private static void register(String properties, Object mbean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(DOMAIN + ":" + properties);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(mbean, name);
+            }
+        } catch (Exception e) {
+            e.printStackTrace(); // metrics are optional, the app keeps working
+        }
+    }
+}
@@ -0,0 +1,49 @@
+import java.util.Map;
+
+// JMX view of the database layer as a whole (balanceapp:type=DatabaseMetrics)
+public interface DatabaseMetricsMXBean {
+
+    // Failed calls per SQLState ("unknown" when the driver gives none)
+    Map<String, Long> getErrorsBySqlState();
+
+    long getConnectionAcquires();
+
+    double getConnectionAcquireP50Millis();
+
+    double getConnectionAcquireP99Millis();
+
+    double getConnectionAcquireMaxMillis();
+
+    int getActiveConnections();
+
+    int getIdleConnections();
+
+    int getConnectionWaiters();
+
+    long getStatementCacheHits();
+
+    long getStatementCacheMisses();
+
+    long getStatementCacheEvictions();
+
+    long getMonthCacheHits();
+
+    long getMonthCacheMisses();
+
+    int getMonthCacheRows();
+
+    // Entries written to the local journal but not yet to the database
+    int getJournalPendingEntries();
+
+    // Journaled entries the database refused for good (moved to the rejected-entries file)
+    long getJournalRejectedEntries();
+
+    // Milliseconds from JVM start until the login screen was shown (-1 until then)
+    long getTimeToFirstScreenMillis();
+
+    // Duration of the background warm-up at start-up (-1 until it finished)
+    long getWarmUpMillis();
+
+    // The same text as the periodic log line
+    String getSummary();
+}
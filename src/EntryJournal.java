@@ -0,0 +1,427 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+// Local write-ahead journal for entry writes, so data entry keeps working while the database is down.
+//
+// append() stores the entry in a memory-mapped, append-only file and forces it to disk
+// before it returns; from then on the entry survives a lost connection, a crash or a
+// restart. A background replayer drains the journal to the database in batches (the latest
+// value per day, written as idempotent upserts) and records how far it got in the file
+// header, so a restart replays only what is left. While the database is unreachable the
+// replayer retries with a growing delay. An entry the database refuses for good (e.g. a
+// constraint violation) is moved to "<journal>.rejected.csv" and reported, so it does not
+// block the entries behind it. Once everything is replayed the file is reset.
+//
+// Write-behind: with a coalesce delay, the replayer waits that long after the first pending
+// entry (or until a batch is full) before writing, so repeated corrections of the same day
+// become one upsert. Pending values are visible to readers through getPending() right away,
+// and close() writes what is left.
+//
+// Each record keeps the time it was entered, taken from the clock passed in (the database
+// server's), which becomes the row's updated_at. A day whose row was changed in the database
+// after that (by an import, transactions or another computer) is not overwritten on replay;
+// the entry is moved to the rejected-entries file instead.
+//
+// File layout: a 64 byte header (magic, version, sequence number of the last replayed
+// record), then 40 byte records: sequence (long), epoch day (int), revenue and expense in
+// cents (long), time entered (epoch ms, long), CRC32 of the first 36 bytes (int). A torn or
+// zeroed record ends the log.
+public class EntryJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x424A524E; // "BJRN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int CHECKPOINT_OFFSET = 8;
+    private static final int RECORD_SIZE = 40;
+    private static final int CRC_OFFSET = 36;
+    private static final int INITIAL_SIZE = HEADER_SIZE + RECORD_SIZE * 16_384; // 640 KB
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    // Writes replayed entries; enteredAt[i] is when entries.get(i) was entered (epoch ms, 0 = unknown)
+    public interface Writer {
+        List<EntryWriteResult> write(List<DailyEntry> entries, long[] enteredAt);
+    }
+
+    private static final class Record {
+        final long sequence;
+        final DailyEntry entry;
+        final long enteredAt; // from clock, 0 if unknown
+        final long appendedAt; // System.nanoTime()
+
+        Record(long sequence, DailyEntry entry, long enteredAt) {
+            this.sequence = sequence;
+            this.entry = entry;
+            this.enteredAt = enteredAt;
+            this.appendedAt = System.nanoTime();
+        }
+    }
+
+    private final Path file;
+    private final Path rejectedFile; // entries the database refused, e.g. balance-journal.bin.rejected.csv
+    private final FileChannel channel;
+    private final int batchSize;
+    private final long retryDelayMs;
+    private final long coalesceNanos;
+    private final LongSupplier clock;
+    private final Writer writer;
+
+    private MappedByteBuffer map;
+    private int position; // where the next record goes
+    private long lastSequence;
+    private long rejectedCount;
+    private final ArrayDeque<Record> pending = new ArrayDeque<>(); // appended, not yet in the database
+    private final Map<LocalDate, Record> latest = new HashMap<>(); // newest pending value per day
+
+    private final Object replayLock = new Object(); // one replay at a time (replayer thread or drain())
+    private final Thread replayer;
+    private volatile boolean stopping; // no more appends, replayer exits
+    private volatile boolean closed;
+
+    // Opens (or creates) the journal and starts replaying what an earlier run left behind.
+    // The file is locked, so only one process (e.g. the GUI, not a CLI run next to it) uses it.
+    // (coalesceMs: write-behind delay, 0 = write right away; clock: the time an entry is made,
+    // epoch ms, 0 = unknown)
+    public EntryJournal(Path file, int batchSize, long retryDelayMs, long coalesceMs,
+                        LongSupplier clock, Writer writer) throws IOException {
+        this.file = file;
+        this.rejectedFile = file.resolveSibling(file.getFileName() + ".rejected.csv");
+        this.batchSize = Math.max(1, batchSize);
+        this.retryDelayMs = Math.max(1, retryDelayMs);
+        this.coalesceNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, coalesceMs));
+        this.clock = clock;
+        this.writer = writer;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.tryLock() == null) throw new OverlappingFileLockException();
+        } catch (OverlappingFileLockException e) {
+            channel.close();
+            throw new IOException(file + " is in use by another instance");
+        }
+
+        boolean created = channel.size() == 0;
+        map(Math.max(INITIAL_SIZE, channel.size()));
+        if (created || map.getInt(0) != MAGIC) {
+            if (!created) throw new IOException(file + " is not a balance journal");
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            map.putLong(CHECKPOINT_OFFSET, 0);
+            map.force();
+        } else if (map.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException(file + " has unsupported journal version " + map.getInt(4));
+        }
+        recover();
+
+        replayer = new Thread(this::replayLoop, "balance-journal-replay");
+        replayer.setDaemon(true);
+        replayer.start();
+    }
+
+    // Durably records the entry; it reaches the database in the background
+    public synchronized void append(DailyEntry entry) throws IOException {
+        if (stopping) throw new IOException("Journal " + file + " is closed");
+        if (position + RECORD_SIZE > map.capacity()) {
+            map((long) map.capacity() * 2); // the replayer is behind, keep accepting entries
+        }
+        long sequence = lastSequence + 1;
+        long enteredAt = clock.getAsLong();
+        putRecord(position, sequence, Math.toIntExact(entry.getDate().toEpochDay()), entry.getRevenueCents(),
+                entry.getExpenseCents(), enteredAt);
+        map.force();
+
+        position += RECORD_SIZE;
+        lastSequence = sequence;
+        DailyEntry copy = new DailyEntry(entry.getDate(), entry.getRevenueCents(), entry.getExpenseCents());
+        Record record = new Record(sequence, copy, enteredAt);
+        pending.add(record);
+        latest.put(copy.getDate(), record);
+        notifyAll(); // wake the replayer
+    }
+
+    // Entries written to the journal but not yet to the database
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    // Entries the database refused for good since the start (they are in the rejected-entries file)
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    // File that collects entries the database refused for good
+    public Path getRejectedFile() {
+        return rejectedFile;
+    }
+
+    // Newest pending value of the day, or null if the database is up to date for it
+    public synchronized DailyEntry getPending(LocalDate date) {
+        Record record = latest.get(date);
+        return record == null ? null : copy(record.entry);
+    }
+
+    // Newest pending values between from and to (inclusive), in date order
+    public synchronized List<DailyEntry> getPending(LocalDate from, LocalDate to) {
+        List<DailyEntry> entries = new ArrayList<>();
+        for (Record record : latest.values()) {
+            DailyEntry entry = record.entry;
+            if (!entry.getDate().isBefore(from) && !entry.getDate().isAfter(to)) {
+                entries.add(copy(entry));
+            }
+        }
+        entries.sort(Comparator.comparing(DailyEntry::getDate));
+        return entries;
+    }
+
+    // Replays what is pending right now on the calling thread; false if the database did not take it all
+    public boolean drain() {
+        synchronized (replayLock) {
+            while (true) {
+                List<Record> batch = nextBatch();
+                if (batch.isEmpty()) return true;
+                if (!replay(batch)) return false;
+            }
+        }
+    }
+
+    // Stops the replayer and writes what is still pending (what fails stays in the file for the next start)
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (stopping) return;
+            stopping = true;
+            notifyAll();
+        }
+        try {
+            replayer.join(5_000);
+            drain();
+            closed = true;
+            channel.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void replayLoop() {
+        long delay = retryDelayMs;
+        while (!stopping) {
+            synchronized (this) {
+                try {
+                    while (pending.isEmpty() && !stopping) {
+                        wait();
+                    }
+                    // Write-behind: give further edits time to arrive, unless a batch is already full
+                    while (!stopping && !pending.isEmpty() && pending.size() < batchSize) {
+                        long remaining = pending.peek().appendedAt + coalesceNanos - System.nanoTime();
+                        if (remaining <= 0) break;
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            if (stopping) return;
+
+            if (drain()) {
+                delay = retryDelayMs;
+                continue;
+            }
+            try {
+                Thread.sleep(delay); // database unreachable, try again later
+            } catch (InterruptedException e) {
+                return;
+            }
+            delay = Math.min(delay * 2, MAX_RETRY_DELAY_MS);
+        }
+    }
+
+    // Oldest pending records, up to batchSize
+    private synchronized List<Record> nextBatch() {
+        List<Record> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        for (Record record : pending) {
+            if (batch.size() == batchSize) break;
+            batch.add(record);
+        }
+        return batch;
+    }
+
+    // Writes the batch (latest value per day) and moves the checkpoint past it.
+    // A passing failure (connection lost, deadlock, timeout) leaves the batch for a retry, and
+    // upserts make a retry harmless. Entries the database rejects for good go to the
+    // rejected-entries file instead, so they do not hold up the entries behind them.
+    private boolean replay(List<Record> batch) {
+        Map<LocalDate, Record> days = new LinkedHashMap<>();
+        for (Record record : batch) {
+            days.remove(record.entry.getDate()); // keep the order of the last write
+            days.put(record.entry.getDate(), newest(record));
+        }
+
+        List<EntryWriteResult> results = write(new ArrayList<>(days.values()));
+        if (results == null) return false;
+        List<EntryWriteResult> rejected = new ArrayList<>();
+        for (EntryWriteResult result : results) {
+            if (!result.isSuccess()) rejected.add(result);
+        }
+        if (rejected.size() > 1) {
+            // A month is one transaction, so one bad entry fails the whole month: find it
+            List<EntryWriteResult> single = new ArrayList<>();
+            for (EntryWriteResult result : rejected) {
+                if (result.isRetryable() || result.getStatus() == EntryWriteResult.Status.CONFLICT) {
+                    single.add(result);
+                    continue;
+                }
+                List<EntryWriteResult> alone = write(Collections.singletonList(days.get(result.getEntry().getDate())));
+                if (alone == null) return false;
+                if (!alone.get(0).isSuccess()) single.add(alone.get(0));
+            }
+            rejected = single;
+        }
+        for (EntryWriteResult result : rejected) {
+            if (result.isRetryable()) {
+                System.err.println("Journal replay of " + result.getEntry().getDate() + " failed, will retry: " + result.getError());
+                return false;
+            }
+        }
+        if (!rejected.isEmpty() && !reject(rejected)) return false;
+
+        checkpoint(batch.get(batch.size() - 1).sequence, batch.size());
+        return true;
+    }
+
+    // The newest pending record of the record's day. Writing it instead of an older value means
+    // this journal never leaves a row newer than a record still waiting behind it.
+    private synchronized Record newest(Record record) {
+        Record newest = latest.get(record.entry.getDate());
+        return newest == null ? record : newest;
+    }
+
+    // The writer's results, or null if it threw
+    private List<EntryWriteResult> write(List<Record> records) {
+        List<DailyEntry> entries = new ArrayList<>(records.size());
+        long[] enteredAt = new long[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            entries.add(records.get(i).entry);
+            enteredAt[i] = records.get(i).enteredAt;
+        }
+        try {
+            return writer.write(entries, enteredAt);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Appends rejected entries to the rejected-entries file (a CSV the import reads); false if that failed
+    private boolean reject(List<EntryWriteResult> rejected) {
+        StringBuilder lines = new StringBuilder();
+        if (!Files.exists(rejectedFile)) lines.append("date,revenue,expense,error\n");
+        for (EntryWriteResult result : rejected) {
+            DailyEntry entry = result.getEntry();
+            String error = String.valueOf(result.getError()).replace("\"", "\"\"").replace('\n', ' ');
+            lines.append(entry.getDate()).append(',').append(Money.format(entry.getRevenueCents())).append(',')
+                    .append(Money.format(entry.getExpenseCents())).append(",\"").append(error).append("\"\n");
+            System.err.println("Journal entry for " + entry.getDate() + " was not written and is saved in "
+                    + rejectedFile + ": " + result.getError());
+        }
+        try {
+            Files.write(rejectedFile, lines.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            e.printStackTrace(); // keep the entries in the journal rather than lose them
+            return false;
+        }
+        synchronized (this) {
+            rejectedCount += rejected.size();
+        }
+        return true;
+    }
+
+    private synchronized void checkpoint(long sequence, int replayed) {
+        for (int i = 0; i < replayed; i++) {
+            Record record = pending.poll();
+            latest.remove(record.entry.getDate(), record); // unless a newer value is pending
+        }
+        if (closed) return;
+        map.putLong(CHECKPOINT_OFFSET, sequence);
+        if (pending.isEmpty()) {
+            // Everything is in the database: start over at the top of the file
+            for (int offset = HEADER_SIZE; offset < position; offset += 8) {
+                map.putLong(offset, 0);
+            }
+            position = HEADER_SIZE;
+        }
+        map.force();
+    }
+
+    // Reads the records after the checkpoint back into `pending`
+    private void recover() {
+        long checkpoint = map.getLong(CHECKPOINT_OFFSET);
+        lastSequence = checkpoint;
+        position = HEADER_SIZE;
+        long previous = 0;
+        while (position + RECORD_SIZE <= map.capacity()) {
+            long sequence = map.getLong(position);
+            if (sequence <= previous || map.getInt(position + CRC_OFFSET) != checksum(position, CRC_OFFSET)) break; // end of the log
+            if (sequence > checkpoint) {
+                LocalDate date = LocalDate.ofEpochDay(map.getInt(position + 8));
+                DailyEntry entry = new DailyEntry(date, map.getLong(position + 12), map.getLong(position + 20));
+                Record record = new Record(sequence, entry, map.getLong(position + 28));
+                pending.add(record);
+                latest.put(date, record);
+            }
+            previous = sequence;
+            lastSequence = Math.max(lastSequence, sequence);
+            position += RECORD_SIZE;
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("Journal " + file + ": " + pending.size() + " entries to replay");
+        }
+    }
+
+    private void putRecord(int offset, long sequence, int epochDay, long revenueCents, long expenseCents,
+                           long enteredAt) {
+        map.putLong(offset, sequence);
+        map.putInt(offset + 8, epochDay);
+        map.putLong(offset + 12, revenueCents);
+        map.putLong(offset + 20, expenseCents);
+        map.putLong(offset + 28, enteredAt);
+        map.putInt(offset + CRC_OFFSET, checksum(offset, CRC_OFFSET));
+    }
+
+    private static DailyEntry copy(DailyEntry entry) {
+        return new DailyEntry(entry.getDate(), entry.getRevenueCents(), entry.getExpenseCents());
+    }
+
+    private int checksum(int offset, int length) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < length; i++) {
+            crc.update(map.get(offset + i));
+        }
+        return (int) crc.getValue();
+    }
+
+    private void map(long size) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,6 @@
+// Receives one entry as primitive values (date as epoch day, amounts in cents), for loops that should not allocate
+@FunctionalInterface
+public interface EntryRowConsumer {
+
+    void accept(long epochDay, long revenueCents, long expenseCents);
+}
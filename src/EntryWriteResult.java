@@ -0,0 +1,56 @@
+// Outcome of writing one daily entry as part of a batch
+public class EntryWriteResult {
+
+    public enum Status {
+        INSERTED,   // new row for that date
+        UPDATED,    // existing row overwritten
+        UNCHANGED,  // existing row already had these values
+        WRITTEN,    // driver did not report which of the above happened
+        CONFLICT,   // not written: the row changed in the database after the entry was made
+        FAILED
+    }
+
+    private final DailyEntry entry;
+    private final Status status;
+    private final String error;
+    private final boolean retryable;
+
+    public EntryWriteResult(DailyEntry entry, Status status, String error) {
+        this(entry, status, error, false);
+    }
+
+    // retryable: the write failed for a passing reason (connection lost, deadlock, timeout)
+    public EntryWriteResult(DailyEntry entry, Status status, String error, boolean retryable) {
+        this.entry = entry;
+        this.status = status;
+        this.error = error;
+        this.retryable = retryable;
+    }
+
+    public DailyEntry getEntry() {
+        return entry;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status != Status.FAILED && status != Status.CONFLICT;
+    }
+
+    // True if the row failed but the same write may succeed later
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    // Error message for failed rows, null otherwise
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return entry.getDate() + ": " + status + (error != null ? " (" + error + ")" : "");
+    }
+}
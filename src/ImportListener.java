@@ -0,0 +1,5 @@
+// Receives progress snapshots from a running CSV import (called from the import thread)
+public interface ImportListener {
+
+    void onProgress(ImportReport progress);
+}
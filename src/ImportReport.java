@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Progress and outcome of a CSV import. Listeners get snapshots while the import runs,
+// the final report is returned once it is done.
+public class ImportReport {
+
+    private final String source;
+    private final long bytesRead;
+    private final long totalBytes;
+    private final long linesRead;
+    private final long rowsWritten;
+    private final long rowsRejected;
+    private final long rowsFailed;
+    private final long elapsedMillis;
+    private final boolean finished;
+    private final boolean cancelled;
+    private final List<String> errors;
+    private final long errorCount;
+
+    public ImportReport(String source, long bytesRead, long totalBytes, long linesRead,
+                        long rowsWritten, long rowsRejected, long rowsFailed, long elapsedMillis,
+                        boolean finished, boolean cancelled, List<String> errors, long errorCount) {
+        this.source = source;
+        this.bytesRead = bytesRead;
+        this.totalBytes = totalBytes;
+        this.linesRead = linesRead;
+        this.rowsWritten = rowsWritten;
+        this.rowsRejected = rowsRejected;
+        this.rowsFailed = rowsFailed;
+        this.elapsedMillis = elapsedMillis;
+        this.finished = finished;
+        this.cancelled = cancelled;
+        this.errors = Collections.unmodifiableList(new ArrayList<>(errors));
+        this.errorCount = errorCount;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    // 0..100 based on bytes consumed from the file
+    public int getPercentDone() {
+        if (totalBytes <= 0) return finished ? 100 : 0;
+        return (int) Math.min(100, bytesRead * 100 / totalBytes);
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    // Rows accepted by the database
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    // Rows that failed parsing or validation
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    // Rows that were valid but could not be written
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    // Import throughput measured over the whole run so far
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? 0 : rowsWritten * 1000.0 / elapsedMillis;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // First errors (capped), as "line N: message"
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    // Total number of errors, including those not kept in getErrors()
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d lines, %d written, %d rejected, %d failed in %.1f s (%.0f rows/s)%s",
+                source, linesRead, rowsWritten, rowsRejected, rowsFailed,
+                elapsedMillis / 1000.0, getRowsPerSecond(), cancelled ? " – cancelled" : "");
+    }
+}
@@ -0,0 +1,269 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+// Rolling-window analytics over daily entries: sums, moving averages, year-to-date,
+// month-over-month and year-over-year deltas, best and worst day.
+//
+// Every calendar day between the first and last entry has a slot. Revenue, expense and the
+// number of days with an entry are kept as prefix sums in Fenwick trees, and the best and
+// worst day as min/max segment trees over the slots. Building is one linear pass over the
+// columns; every query and every put() of a single day is O(log n), so a dashboard over
+// decades of data recomputes in microseconds. A day outside the slots grows them (a rebuild).
+public class LedgerAnalytics {
+
+    private static final int NONE = -1;
+
+    private int baseDay; // epoch day of slot 0
+    private int capacity; // number of slots, a power of two
+
+    private long[] revenue; // per slot, cents
+    private long[] expense;
+    private boolean[] present;
+
+    private long[] revenueSums; // Fenwick trees, 1-based
+    private long[] expenseSums;
+    private int[] daySums;
+
+    private int[] best; // segment trees of slot indices, leaves at capacity + slot
+    private int[] worst;
+
+    private LedgerAnalytics() {
+    }
+
+    // One linear pass over the columns
+    public static LedgerAnalytics of(LedgerColumns columns) {
+        LedgerAnalytics analytics = new LedgerAnalytics();
+        if (columns.isEmpty()) {
+            analytics.revenue = new long[0]; // no slots until the first put()
+            analytics.expense = new long[0];
+            analytics.present = new boolean[0];
+        } else {
+            int first = columns.getEpochDay(0);
+            int last = columns.getEpochDay(columns.size() - 1);
+            analytics.allocate(first, last - first + 1);
+            for (int i = 0; i < columns.size(); i++) {
+                int slot = columns.getEpochDay(i) - first;
+                analytics.revenue[slot] = columns.getRevenueCents(i);
+                analytics.expense[slot] = columns.getExpenseCents(i);
+                analytics.present[slot] = true;
+            }
+        }
+        analytics.rebuild();
+        return analytics;
+    }
+
+    // Inserts or changes one day in O(log n)
+    public synchronized void put(LocalDate date, long revenueCents, long expenseCents) {
+        int day = Math.toIntExact(date.toEpochDay());
+        if (day < baseDay || day >= baseDay + capacity) {
+            grow(day);
+        }
+        int slot = day - baseDay;
+        addTo(revenueSums, slot, revenueCents - revenue[slot]);
+        addTo(expenseSums, slot, expenseCents - expense[slot]);
+        if (!present[slot]) {
+            addTo(daySums, slot, 1);
+            present[slot] = true;
+        }
+        revenue[slot] = revenueCents;
+        expense[slot] = expenseCents;
+        updateExtremes(slot);
+    }
+
+    public synchronized long getRevenueCents(LocalDate from, LocalDate to) {
+        return sum(revenueSums, from, to);
+    }
+
+    public synchronized long getExpenseCents(LocalDate from, LocalDate to) {
+        return sum(expenseSums, from, to);
+    }
+
+    public synchronized long getProfitCents(LocalDate from, LocalDate to) {
+        return sum(revenueSums, from, to) - sum(expenseSums, from, to);
+    }
+
+    // Number of days with an entry between from and to (inclusive)
+    public synchronized int getDayCount(LocalDate from, LocalDate to) {
+        int[] range = slots(from, to);
+        if (range == null) return 0;
+        return daySum(range[1]) - (range[0] == 0 ? 0 : daySum(range[0] - 1));
+    }
+
+    // Average profit per recorded day of the `days` days ending at `end`; days without an entry are skipped
+    public synchronized long getMovingAverageProfitCents(LocalDate end, int days) {
+        LocalDate from = end.minusDays(days - 1);
+        int count = getDayCount(from, end);
+        return count == 0 ? 0 : Math.round((double) getProfitCents(from, end) / count);
+    }
+
+    // Profit from January 1 up to and including the date
+    public synchronized long getYearToDateProfitCents(LocalDate date) {
+        return getProfitCents(date.withDayOfYear(1), date);
+    }
+
+    // Profit of the month minus profit of the month before
+    public synchronized long getMonthOverMonthCents(YearMonth month) {
+        return monthProfit(month) - monthProfit(month.minusMonths(1));
+    }
+
+    // Profit of the month minus profit of the same month a year earlier
+    public synchronized long getYearOverYearCents(YearMonth month) {
+        return monthProfit(month) - monthProfit(month.minusYears(1));
+    }
+
+    // Day with the highest profit between from and to (earliest on ties), or null if there is none
+    public synchronized DailyEntry getBestDay(LocalDate from, LocalDate to) {
+        return extreme(best, true, from, to);
+    }
+
+    // Day with the lowest profit between from and to (earliest on ties), or null if there is none
+    public synchronized DailyEntry getWorstDay(LocalDate from, LocalDate to) {
+        return extreme(worst, false, from, to);
+    }
+
+    private long monthProfit(YearMonth month) {
+        return getProfitCents(month.atDay(1), month.atEndOfMonth());
+    }
+
+    // Slots of the range clipped to the known days, or null if nothing is left
+    private int[] slots(LocalDate from, LocalDate to) {
+        long first = Math.max(from.toEpochDay() - baseDay, 0);
+        long last = Math.min(to.toEpochDay() - baseDay, capacity - 1);
+        return first > last ? null : new int[]{(int) first, (int) last};
+    }
+
+    private long sum(long[] tree, LocalDate from, LocalDate to) {
+        int[] range = slots(from, to);
+        if (range == null) return 0;
+        return prefix(tree, range[1]) - (range[0] == 0 ? 0 : prefix(tree, range[0] - 1));
+    }
+
+    // Sum of slots 0..slot
+    private static long prefix(long[] tree, int slot) {
+        long sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private int daySum(int slot) {
+        int sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += daySums[i];
+        }
+        return sum;
+    }
+
+    private void addTo(long[] tree, int slot, long delta) {
+        if (delta == 0) return;
+        for (int i = slot + 1; i <= capacity; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private void addTo(int[] tree, int slot, int delta) {
+        for (int i = slot + 1; i <= capacity; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private DailyEntry extreme(int[] tree, boolean highest, LocalDate from, LocalDate to) {
+        int[] range = slots(from, to);
+        if (range == null) return null;
+        int found = NONE;
+        for (int l = range[0] + capacity, r = range[1] + capacity + 1; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) found = pick(found, tree[l++], highest);
+            if ((r & 1) == 1) found = pick(found, tree[--r], highest);
+        }
+        return found == NONE ? null : new DailyEntry(LocalDate.ofEpochDay(baseDay + found), revenue[found], expense[found]);
+    }
+
+    // The better of two slots (NONE loses; ties go to the earlier day)
+    private int pick(int a, int b, boolean highest) {
+        if (a == NONE) return b;
+        if (b == NONE) return a;
+        long pa = revenue[a] - expense[a];
+        long pb = revenue[b] - expense[b];
+        if (pa == pb) return Math.min(a, b);
+        return (pa > pb) == highest ? a : b;
+    }
+
+    private void updateExtremes(int slot) {
+        best[capacity + slot] = slot;
+        worst[capacity + slot] = slot;
+        for (int i = (capacity + slot) >> 1; i > 0; i >>= 1) {
+            best[i] = pick(best[2 * i], best[2 * i + 1], true);
+            worst[i] = pick(worst[2 * i], worst[2 * i + 1], false);
+        }
+    }
+
+    // Re-lays the slots so the day fits, with room to grow in the same direction
+    private void grow(int day) {
+        if (capacity == 0) {
+            allocate(day, 1);
+            rebuild();
+            return;
+        }
+        int newBase = Math.min(baseDay, day);
+        int newEnd = Math.max(baseDay + capacity - 1, day);
+        int span = newEnd - newBase + 1;
+        if (day < baseDay) newBase -= span; // room for more days before the first one
+
+        long[] oldRevenue = revenue;
+        long[] oldExpense = expense;
+        boolean[] oldPresent = present;
+        int oldBase = baseDay;
+
+        allocate(newBase, day < oldBase ? newEnd - newBase + 1 : span * 2); // or after the last one
+        int offset = oldBase - newBase;
+        System.arraycopy(oldRevenue, 0, revenue, offset, oldRevenue.length);
+        System.arraycopy(oldExpense, 0, expense, offset, oldExpense.length);
+        System.arraycopy(oldPresent, 0, present, offset, oldPresent.length);
+        rebuild();
+    }
+
+    // Empty slots for at least `span` days from baseDay
+    private void allocate(int baseDay, int span) {
+        int size = Integer.highestOneBit(Math.max(1, span) * 2 - 1);
+        this.baseDay = baseDay;
+        this.capacity = size;
+        revenue = new long[size];
+        expense = new long[size];
+        present = new boolean[size];
+    }
+
+    // Fills the trees from the slot arrays in linear time
+    private void rebuild() {
+        revenueSums = new long[capacity + 1];
+        expenseSums = new long[capacity + 1];
+        daySums = new int[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            revenueSums[i] += revenue[i - 1];
+            expenseSums[i] += expense[i - 1];
+            daySums[i] += present[i - 1] ? 1 : 0;
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                revenueSums[parent] += revenueSums[i];
+                expenseSums[parent] += expenseSums[i];
+                daySums[parent] += daySums[i];
+            }
+        }
+
+        best = new int[2 * capacity];
+        worst = new int[2 * capacity];
+        Arrays.fill(best, NONE);
+        Arrays.fill(worst, NONE);
+        for (int slot = 0; slot < capacity; slot++) {
+            if (present[slot]) {
+                best[capacity + slot] = slot;
+                worst[capacity + slot] = slot;
+            }
+        }
+        for (int i = capacity - 1; i > 0; i--) {
+            best[i] = pick(best[2 * i], best[2 * i + 1], true);
+            worst[i] = pick(worst[2 * i], worst[2 * i + 1], false);
+        }
+    }
+}
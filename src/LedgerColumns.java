@@ -0,0 +1,210 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+// Daily entries in column form: epoch day (int), revenue and expense (long cents), in date order.
+//
+// About 20 bytes per day instead of a DailyEntry with its LocalDate; profit is computed on
+// demand. This is the in-memory format shared by the month cache, the table model and the
+// aggregations. Lookup by date is a binary search, and slice()/subRange() return views
+// on the same arrays, so nothing is copied. Views are read-only; a store is not thread-safe,
+// so one that is shared between threads must not be modified any more.
+public class LedgerColumns {
+
+    private int[] days;
+    private long[] revenue;
+    private long[] expense;
+    private final int start; // first row of a view
+    private int size;
+    private final boolean readOnly;
+
+    public LedgerColumns() {
+        this(16);
+    }
+
+    public LedgerColumns(int capacity) {
+        this(new int[Math.max(1, capacity)], new long[Math.max(1, capacity)], new long[Math.max(1, capacity)], 0, 0, false);
+    }
+
+    private LedgerColumns(int[] days, long[] revenue, long[] expense, int start, int size, boolean readOnly) {
+        this.days = days;
+        this.revenue = revenue;
+        this.expense = expense;
+        this.start = start;
+        this.size = size;
+        this.readOnly = readOnly;
+    }
+
+    // Entries in any order; a later entry for the same day wins
+    public static LedgerColumns of(Collection<DailyEntry> entries) {
+        LedgerColumns columns = new LedgerColumns(entries.size());
+        for (DailyEntry entry : entries) {
+            columns.put(entry.getDate(), entry.getRevenueCents(), entry.getExpenseCents());
+        }
+        return columns;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getEpochDay(int index) {
+        return days[start + checkIndex(index)];
+    }
+
+    public LocalDate getDate(int index) {
+        return LocalDate.ofEpochDay(getEpochDay(index));
+    }
+
+    public long getRevenueCents(int index) {
+        return revenue[start + checkIndex(index)];
+    }
+
+    public long getExpenseCents(int index) {
+        return expense[start + checkIndex(index)];
+    }
+
+    public long getProfitCents(int index) {
+        int i = start + checkIndex(index);
+        return revenue[i] - expense[i];
+    }
+
+    // Adds a day after the last one (the fast path for rows read in date order)
+    public void append(int epochDay, long revenueCents, long expenseCents) {
+        checkWritable();
+        if (size > 0 && days[size - 1] >= epochDay) {
+            throw new IllegalArgumentException("Day " + LocalDate.ofEpochDay(epochDay) + " is not after "
+                    + LocalDate.ofEpochDay(days[size - 1]));
+        }
+        ensureCapacity(size + 1);
+        days[size] = epochDay;
+        revenue[size] = revenueCents;
+        expense[size] = expenseCents;
+        size++;
+    }
+
+    // Inserts the day or overwrites it if present
+    public void put(LocalDate date, long revenueCents, long expenseCents) {
+        checkWritable();
+        int epochDay = Math.toIntExact(date.toEpochDay());
+        if (size == 0 || days[size - 1] < epochDay) {
+            append(epochDay, revenueCents, expenseCents);
+            return;
+        }
+        int index = indexOf(date);
+        if (index < 0) {
+            index = -index - 1;
+            ensureCapacity(size + 1);
+            System.arraycopy(days, index, days, index + 1, size - index);
+            System.arraycopy(revenue, index, revenue, index + 1, size - index);
+            System.arraycopy(expense, index, expense, index + 1, size - index);
+            days[index] = epochDay;
+            size++;
+        }
+        revenue[index] = revenueCents;
+        expense[index] = expenseCents;
+    }
+
+    // Row of the date, or (-(insertion point) - 1) like Arrays.binarySearch
+    public int indexOf(LocalDate date) {
+        int found = Arrays.binarySearch(days, start, start + size, Math.toIntExact(date.toEpochDay()));
+        return found >= 0 ? found - start : found + start;
+    }
+
+    // First row on or after the date (size() if none)
+    public int fromIndex(LocalDate date) {
+        int index = indexOf(date);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // First row after the date (size() if none)
+    public int toIndex(LocalDate date) {
+        int index = indexOf(date);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    // Read-only view of the rows between from and to (inclusive), sharing these arrays
+    public LedgerColumns slice(LocalDate from, LocalDate to) {
+        int fromIndex = fromIndex(from);
+        return subRange(fromIndex, Math.max(fromIndex, toIndex(to)));
+    }
+
+    // Read-only view of rows fromIndex (inclusive) to toIndex (exclusive), sharing these arrays
+    public LedgerColumns subRange(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Range " + fromIndex + ".." + toIndex + " of " + size);
+        }
+        return new LedgerColumns(days, revenue, expense, start + fromIndex, toIndex - fromIndex, true);
+    }
+
+    // Read-only view of all rows
+    public LedgerColumns readOnly() {
+        return readOnly ? this : subRange(0, size);
+    }
+
+    // Independent, writable copy of the rows
+    public LedgerColumns copy() {
+        int capacity = Math.max(1, size);
+        LedgerColumns copy = new LedgerColumns(new int[capacity], new long[capacity], new long[capacity], 0, size, false);
+        System.arraycopy(days, start, copy.days, 0, size);
+        System.arraycopy(revenue, start, copy.revenue, 0, size);
+        System.arraycopy(expense, start, copy.expense, 0, size);
+        return copy;
+    }
+
+    public long sumRevenueCents() {
+        long sum = 0;
+        for (int i = start, end = start + size; i < end; i++) {
+            sum += revenue[i];
+        }
+        return sum;
+    }
+
+    public long sumExpenseCents() {
+        long sum = 0;
+        for (int i = start, end = start + size; i < end; i++) {
+            sum += expense[i];
+        }
+        return sum;
+    }
+
+    public void forEach(EntryRowConsumer consumer) {
+        for (int i = start, end = start + size; i < end; i++) {
+            consumer.accept(days[i], revenue[i], expense[i]);
+        }
+    }
+
+    // Fresh DailyEntry objects, for callers that still work on lists
+    public List<DailyEntry> toEntries() {
+        List<DailyEntry> entries = new ArrayList<>(size);
+        for (int i = start, end = start + size; i < end; i++) {
+            entries.add(new DailyEntry(LocalDate.ofEpochDay(days[i]), revenue[i], expense[i]));
+        }
+        return entries;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Row " + index + " of " + size);
+        }
+        return index;
+    }
+
+    private void checkWritable() {
+        if (readOnly) throw new UnsupportedOperationException("Read-only view");
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= days.length) return;
+        int newCapacity = Math.max(capacity, days.length + (days.length >> 1));
+        days = Arrays.copyOf(days, newCapacity);
+        revenue = Arrays.copyOf(revenue, newCapacity);
+        expense = Arrays.copyOf(expense, newCapacity);
+    }
+}
@@ -0,0 +1,298 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.NavigableSet;
+import java.util.zip.CRC32;
+
+// Streams entries from the database into a channel as CSV or a compact binary format.
+//
+// Rows come straight from a forward-only result set (DB_EXPORT_FETCH_SIZE rows per round
+// trip) and are encoded into one 64 KB direct buffer that is written out whenever it fills,
+// so memory use is the same for a month and for a multi-year dump. No DailyEntry or String
+// is created per row.
+//
+// CSV: "date,revenue,expense" header, then e.g. "2025-06-01,1234.50,99.00" (the format
+// CsvImporter reads).
+//
+// Binary (little-endian): magic "BLGX", version (int). Each row: day as the zigzag varint
+// of its distance to the previous day (from epoch day 0) plus one, then revenue and expense
+// in cents as zigzag varints; about 7 bytes per day. A 0 byte ends the rows, followed by the
+// row count (long) and the CRC32 of the row bytes (int).
+public class LedgerExporter {
+
+    public enum Format { CSV, BINARY }
+
+    private static final int MAGIC = 0x58474C42; // "BLGX"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_ROW_BYTES = 64; // longest encoded row, CSV or binary
+    private static final byte[] CSV_HEADER = "date,revenue,expense\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final DatabaseManager db;
+    private final int fetchSize;
+
+    public LedgerExporter(DatabaseManager db, int fetchSize) {
+        this.db = db;
+        this.fetchSize = Math.max(1, fetchSize);
+    }
+
+    // Exporter with the fetch size from db.properties
+    public static LedgerExporter fromConfig(DatabaseManager db) {
+        return new LedgerExporter(db, DatabaseManager.getIntProperty("DB_EXPORT_FETCH_SIZE", 5_000));
+    }
+
+    public long exportMonth(YearMonth month, Format format, WritableByteChannel out) throws IOException, SQLException {
+        return exportRange(month.atDay(1), month.atEndOfMonth(), format, out);
+    }
+
+    // Every month that has data
+    public long exportAll(Format format, WritableByteChannel out) throws IOException, SQLException {
+        NavigableSet<YearMonth> months = DatabaseManager.getSchemaCatalog().getMonths();
+        if (months.isEmpty()) {
+            LocalDate today = LocalDate.now();
+            return exportRange(today, today.minusDays(1), format, out); // just the header (and trailer)
+        }
+        return exportRange(months.first().atDay(1), months.last().atEndOfMonth(), format, out);
+    }
+
+    // Entries between from and to (inclusive) in date order; returns the number of rows written
+    public long exportRange(LocalDate from, LocalDate to, Format format, WritableByteChannel out)
+            throws IOException, SQLException {
+        Encoder encoder = format == Format.CSV ? new CsvEncoder(out) : new BinaryEncoder(out);
+        try {
+            db.forEachEntryRow(from, to, fetchSize, encoder::row);
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // the channel failed, e.g. disk full or a closed pipe
+        }
+        encoder.finish();
+        return encoder.rows;
+    }
+
+    // Reads a binary export back, row by row; returns the number of rows
+    public static long readBinary(ReadableByteChannel in, EntryRowConsumer consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        Reader reader = new Reader(in, buffer);
+        if (reader.readInt() != MAGIC) throw new IOException("Not a ledger export");
+        int version = reader.readInt();
+        if (version != VERSION) throw new IOException("Unsupported export version " + version);
+
+        CRC32 crc = new CRC32();
+        long day = 0;
+        long rows = 0;
+        while (true) {
+            reader.crc = crc;
+            long delta = reader.readVarint();
+            if (delta == 0) break;
+            day += unzigzag(delta - 1);
+            long revenue = unzigzag(reader.readVarint());
+            long expense = unzigzag(reader.readVarint());
+            consumer.accept(day, revenue, expense);
+            rows++;
+        }
+        reader.crc = null;
+        long count = reader.readLong();
+        int checksum = reader.readInt();
+        if (count != rows) {
+            throw new IOException("Export is damaged: " + rows + " rows read, " + count + " expected");
+        }
+        if (checksum != (int) crc.getValue()) throw new IOException("Export is damaged: checksum mismatch");
+        return rows;
+    }
+
+    // Fills the buffer, writes it to the channel when it is (nearly) full
+    private abstract static class Encoder {
+        final WritableByteChannel out;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long rows;
+
+        Encoder(WritableByteChannel out) {
+            this.out = out;
+        }
+
+        final void row(long epochDay, long revenueCents, long expenseCents) {
+            try {
+                if (buffer.remaining() < MAX_ROW_BYTES) flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            encode(epochDay, revenueCents, expenseCents);
+            rows++;
+        }
+
+        abstract void encode(long epochDay, long revenueCents, long expenseCents);
+
+        void finish() throws IOException {
+            flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    private static final class CsvEncoder extends Encoder {
+
+        CsvEncoder(WritableByteChannel out) {
+            super(out);
+            buffer.put(CSV_HEADER);
+        }
+
+        @Override
+        void encode(long epochDay, long revenueCents, long expenseCents) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            digits(date.getYear(), 4);
+            buffer.put((byte) '-');
+            digits(date.getMonthValue(), 2);
+            buffer.put((byte) '-');
+            digits(date.getDayOfMonth(), 2);
+            buffer.put((byte) ',');
+            amount(revenueCents);
+            buffer.put((byte) ',');
+            amount(expenseCents);
+            buffer.put((byte) '\n');
+        }
+
+        // Like Money.format: "-1234.05"
+        private void amount(long cents) {
+            if (cents < 0) buffer.put((byte) '-');
+            long abs = Math.abs(cents);
+            long units = abs / 100;
+            digits(units, 1);
+            buffer.put((byte) '.');
+            digits(abs % 100, 2);
+        }
+
+        // Decimal digits of a non-negative value, zero-padded to minDigits
+        private void digits(long value, int minDigits) {
+            int length = 1;
+            for (long v = value / 10; v > 0; v /= 10) length++;
+            for (int i = length; i < minDigits; i++) buffer.put((byte) '0');
+            int end = buffer.position() + length;
+            for (int i = end - 1; i >= end - length; i--) {
+                buffer.put(i, (byte) ('0' + value % 10));
+                value /= 10;
+            }
+            buffer.position(end);
+        }
+    }
+
+    private static final class BinaryEncoder extends Encoder {
+        private final CRC32 crc = new CRC32();
+        private long previousDay;
+        private int checksummed; // buffer position up to which the CRC is updated
+
+        BinaryEncoder(WritableByteChannel out) {
+            super(out);
+            buffer.putInt(MAGIC).putInt(VERSION);
+            checksummed = buffer.position();
+        }
+
+        @Override
+        void encode(long epochDay, long revenueCents, long expenseCents) {
+            varint(zigzag(epochDay - previousDay) + 1);
+            varint(zigzag(revenueCents));
+            varint(zigzag(expenseCents));
+            previousDay = epochDay;
+        }
+
+        @Override
+        void finish() throws IOException {
+            buffer.put((byte) 0);
+            updateCrc();
+            buffer.putLong(rows).putInt((int) crc.getValue());
+            super.flush(); // the trailer is not part of the CRC
+        }
+
+        @Override
+        void flush() throws IOException {
+            updateCrc();
+            super.flush();
+            checksummed = 0;
+        }
+
+        // Row bytes (not the header or trailer) go into the CRC before the buffer is written
+        private void updateCrc() {
+            ByteBuffer rowBytes = buffer.duplicate();
+            rowBytes.limit(buffer.position()).position(checksummed);
+            crc.update(rowBytes);
+            checksummed = buffer.position();
+        }
+
+        private void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+    }
+
+    // Buffered reads from a channel, feeding the CRC while it is set
+    private static final class Reader {
+        final ReadableByteChannel in;
+        final ByteBuffer buffer;
+        CRC32 crc;
+
+        Reader(ReadableByteChannel in, ByteBuffer buffer) {
+            this.in = in;
+            this.buffer = buffer;
+        }
+
+        byte readByte() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read;
+                do {
+                    read = in.read(buffer);
+                } while (read == 0);
+                buffer.flip();
+                if (read < 0) throw new IOException("Export ends early");
+            }
+            byte b = buffer.get();
+            if (crc != null) crc.update(b);
+            return b;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Export is damaged: bad number");
+        }
+
+        int readInt() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) value |= (readByte() & 0xFF) << (8 * i);
+            return value;
+        }
+
+        long readLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) value |= (long) (readByte() & 0xFF) << (8 * i);
+            return value;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,263 @@
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Copies the per-month tables (june_25, july_25, ...) into the partitioned ledger table.
+//
+// The copy is online: rows are read in small keyset batches and upserted, each batch in its
+// own short transaction, so the app can keep writing to the monthly tables meanwhile. Every
+// month is then verified (row count, revenue/expense sums and a row checksum); months that
+// changed during the copy are resynced and verified again. A month whose check already
+// matches before copying is skipped, so a second run only copies the months changed since.
+//
+// Cut-over: run the migration while the app is running, stop the app, run it once more
+// (it reads each month's check and copies only the changed months again), then set
+// DB_STORAGE_MODE=ledger.
+//
+// Usage: java -cp BalanceApp.jar LedgerMigration [--verify] [--batch N] [--pause-ms N]
+public class LedgerMigration {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final int batchSize;
+    private final long pauseMs;
+
+    public LedgerMigration(int batchSize, long pauseMs) {
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMs = Math.max(0, pauseMs);
+    }
+
+    // Row count, sums and checksum of one month, compared between source and ledger
+    private static final class MonthCheck {
+        final long rows;
+        final BigDecimal revenue;
+        final BigDecimal expense;
+        final long checksum;
+
+        MonthCheck(long rows, BigDecimal revenue, BigDecimal expense, long checksum) {
+            this.rows = rows;
+            this.revenue = revenue;
+            this.expense = expense;
+            this.checksum = checksum;
+        }
+
+        boolean matches(MonthCheck other) {
+            return rows == other.rows && revenue.compareTo(other.revenue) == 0
+                    && expense.compareTo(other.expense) == 0 && checksum == other.checksum;
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows, revenue " + revenue + ", expense " + expense;
+        }
+    }
+
+    // Migrates (or only verifies) every monthly table; returns the number of months that do not match
+    public int run(boolean verifyOnly) throws SQLException {
+        Map<YearMonth, String> sources = findMonthlyTables();
+        if (sources.isEmpty()) {
+            System.out.println("No monthly tables found.");
+            return 0;
+        }
+
+        if (!verifyOnly) {
+            try (Connection conn = DatabaseManager.getConnection()) {
+                LedgerSchema.createTable(conn);
+                for (YearMonth month : sources.keySet()) {
+                    LedgerSchema.ensurePartition(conn, month);
+                }
+            }
+        }
+
+        int mismatches = 0;
+        for (Map.Entry<YearMonth, String> source : sources.entrySet()) {
+            YearMonth month = source.getKey();
+            String table = source.getValue();
+
+            MonthCheck expected = checkSource(table);
+            MonthCheck actual = checkLedger(month);
+            boolean ok = expected.matches(actual); // copied before and unchanged since
+            boolean copied = false;
+            for (int attempt = 1; attempt <= MAX_ATTEMPTS && !ok && !verifyOnly; attempt++) {
+                if (attempt > 1) removeExtraRows(table, month);
+                copyTable(table);
+                copied = true;
+                expected = checkSource(table);
+                actual = checkLedger(month);
+                ok = expected.matches(actual);
+            }
+
+            if (ok) {
+                System.out.println((copied || verifyOnly ? "OK        " : "UNCHANGED ") + table + " -> " + LedgerSchema.partitionName(month) + " (" + actual + ")");
+            } else {
+                mismatches++;
+                System.out.println("MISMATCH  " + table + ": source " + expected + " / ledger " + actual);
+            }
+        }
+
+        System.out.println(sources.size() + " month(s) checked, " + mismatches + " mismatch(es).");
+        return mismatches;
+    }
+
+    // Monthly tables by month, read straight from INFORMATION_SCHEMA (independent of DB_STORAGE_MODE)
+    private Map<YearMonth, String> findMonthlyTables() throws SQLException {
+        Map<YearMonth, String> tables = new TreeMap<>();
+        String sql = "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = DATABASE()";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String name = rs.getString(1);
+                YearMonth month = DatabaseManager.parseMonthlyTableName(name);
+                if (month != null) tables.put(month, name);
+            }
+        }
+        return tables;
+    }
+
+    // Copies one table in keyset batches of batchSize rows, one short transaction per batch
+    private void copyTable(String table) throws SQLException {
+        String select = "SELECT entry_date, revenue, expense FROM " + table
+                + " WHERE entry_date > ? ORDER BY entry_date ASC LIMIT ?";
+        String upsert = "INSERT INTO " + LedgerSchema.TABLE + " (entry_date, revenue, expense) VALUES (?, ?, ?) "
+                + "ON DUPLICATE KEY UPDATE revenue = VALUES(revenue), expense = VALUES(expense)";
+
+        LocalDate after = LocalDate.of(1000, 1, 1);
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement read = conn.prepareStatement(select);
+             PreparedStatement write = conn.prepareStatement(upsert)) {
+
+            while (true) {
+                List<Object[]> rows = new ArrayList<>(batchSize);
+                read.setDate(1, Date.valueOf(after));
+                read.setInt(2, batchSize);
+                try (ResultSet rs = read.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(new Object[]{rs.getDate(1), rs.getBigDecimal(2), rs.getBigDecimal(3)});
+                    }
+                }
+                if (rows.isEmpty()) return;
+
+                conn.setAutoCommit(false);
+                try {
+                    for (Object[] row : rows) {
+                        write.setDate(1, (Date) row[0]);
+                        write.setBigDecimal(2, (BigDecimal) row[1]);
+                        write.setBigDecimal(3, (BigDecimal) row[2]);
+                        write.addBatch();
+                    }
+                    write.executeBatch();
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+
+                after = ((Date) rows.get(rows.size() - 1)[0]).toLocalDate();
+                if (rows.size() < batchSize) return;
+                pause();
+            }
+        }
+    }
+
+    // Deletes ledger rows of the month that no longer exist in the source table
+    private void removeExtraRows(String table, YearMonth month) throws SQLException {
+        String sql = "DELETE l FROM " + LedgerSchema.TABLE + " l LEFT JOIN " + table + " m ON m.entry_date = l.entry_date "
+                + "WHERE l.entry_date BETWEEN ? AND ? AND m.entry_date IS NULL";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, Date.valueOf(month.atDay(1)));
+            stmt.setDate(2, Date.valueOf(month.atEndOfMonth()));
+            stmt.executeUpdate();
+        }
+    }
+
+    private MonthCheck checkSource(String table) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(checkSql(table, false))) {
+            rs.next();
+            return readCheck(rs);
+        }
+    }
+
+    private MonthCheck checkLedger(YearMonth month) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(checkSql(LedgerSchema.TABLE, true))) {
+            stmt.setDate(1, Date.valueOf(month.atDay(1)));
+            stmt.setDate(2, Date.valueOf(month.atEndOfMonth()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return readCheck(rs);
+            }
+        }
+    }
+
+    private static String checkSql(String table, boolean dateRange) {
+        return "SELECT COUNT(*), COALESCE(SUM(revenue), 0), COALESCE(SUM(expense), 0), "
+                + "COALESCE(BIT_XOR(CRC32(CONCAT_WS('|', entry_date, revenue, expense))), 0) FROM " + table
+                + (dateRange ? " WHERE entry_date BETWEEN ? AND ?" : "");
+    }
+
+    private static MonthCheck readCheck(ResultSet rs) throws SQLException {
+        return new MonthCheck(rs.getLong(1), rs.getBigDecimal(2), rs.getBigDecimal(3), rs.getLong(4));
+    }
+
+    // Leaves the server some room between batches while the app is running
+    private void pause() {
+        if (pauseMs == 0) return;
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) {
+        boolean verifyOnly = false;
+        int batchSize = 500;
+        long pauseMs = 20;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--verify":
+                        verifyOnly = true;
+                        break;
+                    case "--batch":
+                        batchSize = Integer.parseInt(args[++i]);
+                        break;
+                    case "--pause-ms":
+                        pauseMs = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: LedgerMigration [--verify] [--batch N] [--pause-ms N]");
+            System.exit(2);
+        }
+
+        try {
+            int mismatches = new LedgerMigration(batchSize, pauseMs).run(verifyOnly);
+            System.exit(mismatches == 0 ? 0 : 1);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
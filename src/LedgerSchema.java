@@ -0,0 +1,133 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// DDL helpers for the single "ledger" table used when DB_STORAGE_MODE=ledger.
+//
+// The ledger is RANGE-partitioned on TO_DAYS(entry_date) with one partition per month
+// (p202506 holds June 2025) plus a catch-all p_future. Queries that filter on entry_date
+// only touch the partitions of the months involved.
+public class LedgerSchema {
+
+    public static final String TABLE = "ledger";
+
+    private static final String FUTURE_PARTITION = "p_future";
+
+    // MariaDB error for "duplicate partition name" (another client added it first)
+    private static final int ER_SAME_NAME_PARTITION = 1517;
+
+    // TO_DAYS('1970-01-01')
+    private static final long TO_DAYS_EPOCH = 719528;
+
+    private LedgerSchema() {
+    }
+
+    // Creates the ledger table if it does not exist yet.
+    // No surrogate id: every unique key of a partitioned table must contain the partition column.
+    public static void createTable(Connection conn) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                + "entry_date DATE NOT NULL PRIMARY KEY, "
+                + "revenue DECIMAL(10,2), "
+                + "expense DECIMAL(10,2), "
+                + "profit DECIMAL(10,2) GENERATED ALWAYS AS (revenue - expense) STORED, "
+                + DatabaseManager.UPDATED_AT_COLUMN
+                + ") PARTITION BY RANGE (TO_DAYS(entry_date)) ("
+                + "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    // Makes sure the month has its own partition by splitting the partition that currently covers it.
+    // Returns true if a partition was added.
+    public static boolean ensurePartition(Connection conn, YearMonth month) throws SQLException {
+        createTable(conn);
+
+        long monthStart = toDays(month.atDay(1));
+        long nextMonthStart = toDays(month.plusMonths(1).atDay(1));
+
+        // Find the partition whose range contains the first day of the month
+        String coveringName = null;
+        long coveringBound = Long.MAX_VALUE;
+        String sql = "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM INFORMATION_SCHEMA.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, TABLE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    long bound = parseBound(rs.getString(2));
+                    if (bound > monthStart && (coveringName == null || bound < coveringBound)) {
+                        coveringName = rs.getString(1);
+                        coveringBound = bound;
+                    }
+                }
+            }
+        }
+
+        if (coveringName == null) {
+            throw new SQLException("Table " + TABLE + " is not partitioned as expected");
+        }
+        if (coveringBound == nextMonthStart) {
+            return false; // The month already ends exactly at a partition bound
+        }
+
+        String ddl = "ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + coveringName + " INTO ("
+                + "PARTITION " + partitionName(month) + " VALUES LESS THAN (" + nextMonthStart + "), "
+                + "PARTITION " + coveringName + " VALUES LESS THAN ("
+                + (coveringBound == Long.MAX_VALUE ? "MAXVALUE" : String.valueOf(coveringBound)) + "))";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(ddl);
+            return true;
+        } catch (SQLException e) {
+            if (e.getErrorCode() == ER_SAME_NAME_PARTITION) return false;
+            throw e;
+        }
+    }
+
+    // Months that have their own partition, in chronological order
+    public static NavigableSet<YearMonth> loadPartitionMonths(Connection conn) throws SQLException {
+        NavigableSet<YearMonth> months = new TreeSet<>();
+        String sql = "SELECT PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, TABLE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    YearMonth month = parsePartitionName(rs.getString(1));
+                    if (month != null) months.add(month);
+                }
+            }
+        }
+        return months;
+    }
+
+    // Partition name for a month, e.g. p202506
+    public static String partitionName(YearMonth month) {
+        return String.format("p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    public static YearMonth parsePartitionName(String name) {
+        if (name == null || name.length() != 7 || name.charAt(0) != 'p') return null;
+        try {
+            return YearMonth.of(Integer.parseInt(name.substring(1, 5)), Integer.parseInt(name.substring(5, 7)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Same value as MariaDB's TO_DAYS(date)
+    static long toDays(LocalDate date) {
+        return date.toEpochDay() + TO_DAYS_EPOCH;
+    }
+
+    private static long parseBound(String description) {
+        if (description == null || description.trim().equalsIgnoreCase("MAXVALUE")) return Long.MAX_VALUE;
+        return Long.parseLong(description.trim());
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+// Local copy of past months in a memory-mapped file, so they open without a database round trip.
+//
+// The file is mapped when the app starts and its index is read into memory; a month is then
+// read straight from the mapping into LedgerColumns. Each month is stored with its revision
+// from monthly_summary, which grows with every write to the month. sync (see
+// DatabaseManager.syncSnapshot) compares those revisions with the database and only fetches
+// the months that changed. A month this process writes to is not served again until the next
+// sync has fetched it.
+//
+// File layout (little-endian): a 64 byte header (magic, version, offset and number of index
+// entries, CRC32 of the index, end of the used part), month blocks (epoch days as int, then
+// revenue and expense in cents as long, one column after the other), and the index: 24 bytes
+// per month (year * 12 + month - 1, row count, revision, block offset). An update appends the
+// new blocks and a new index, forces them to disk and only then switches the header over, so
+// a crash leaves the previous state. Space of replaced blocks is reused when it outgrows the
+// live data.
+public class LedgerSnapshot implements AutoCloseable {
+
+    private static final int MAGIC = 0x504E5342; // "BSNP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int INDEX_OFFSET = 8;
+    private static final int INDEX_COUNT = 16;
+    private static final int INDEX_CRC = 20;
+    private static final int END_OFFSET = 24;
+    private static final int INDEX_ENTRY_SIZE = 24;
+    private static final int ROW_SIZE = 20; // int day + long revenue + long expense
+    private static final int INITIAL_SIZE = 256 * 1024;
+
+    private static final class Slot {
+        final long revision;
+        final long offset;
+        final int rows;
+
+        Slot(long revision, long offset, int rows) {
+            this.revision = revision;
+            this.offset = offset;
+            this.rows = rows;
+        }
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+
+    private MappedByteBuffer map;
+    private long end; // first unused byte
+    private TreeMap<YearMonth, Slot> index = new TreeMap<>();
+    private final Map<YearMonth, Long> written = new HashMap<>(); // month -> change number of the local write
+    private long changes;
+    private volatile long syncedAt; // 0 until the first sync
+
+    // Opens (or creates) the snapshot; the file is locked, like the entry journal
+    public LedgerSnapshot(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.tryLock() == null) throw new OverlappingFileLockException();
+        } catch (OverlappingFileLockException e) {
+            channel.close();
+            throw new IOException(file + " is in use by another instance");
+        }
+
+        boolean created = channel.size() == 0;
+        map(Math.max(INITIAL_SIZE, channel.size()));
+        if (!created && map.getInt(0) != MAGIC) {
+            channel.close();
+            throw new IOException(file + " is not a balance snapshot");
+        }
+        if (created || map.getInt(4) != VERSION || !readIndex()) {
+            if (!created) System.err.println("Snapshot " + file + " is outdated or damaged, it is rebuilt from the database");
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            index = new TreeMap<>();
+            writeHeader(HEADER_SIZE, 0, 0, HEADER_SIZE);
+            map.force();
+        }
+    }
+
+    // The month as stored, or null if the snapshot does not have it (or it was written since the last sync)
+    public synchronized LedgerColumns get(YearMonth month) {
+        Slot slot = index.get(month);
+        if (slot == null || written.containsKey(month)) return null;
+        return read(slot);
+    }
+
+    // Months and their revisions as of the last sync
+    public synchronized Map<YearMonth, Long> getRevisions() {
+        Map<YearMonth, Long> revisions = new HashMap<>();
+        for (Map.Entry<YearMonth, Slot> entry : index.entrySet()) {
+            revisions.put(entry.getKey(), entry.getValue().revision);
+        }
+        return revisions;
+    }
+
+    // Stops serving a month this process has written to, until a sync fetches it again
+    public synchronized void invalidate(YearMonth month) {
+        written.put(month, ++changes);
+    }
+
+    // Call before reading the revisions from the database; pass the result to update()
+    public synchronized long beginSync() {
+        return changes;
+    }
+
+    // Makes the snapshot match the database: `revisions` are all months the snapshot should
+    // hold, `fetched` the rows of those whose revision differs from the stored one. Months
+    // written after beginSync() stay invalid, their fetched rows may already be outdated.
+    public synchronized void update(long since, Map<YearMonth, Long> revisions, Map<YearMonth, LedgerColumns> fetched)
+            throws IOException {
+        Map<YearMonth, LedgerColumns> blocks = new TreeMap<>(fetched);
+        TreeMap<YearMonth, Slot> kept = new TreeMap<>();
+        long liveBytes = 0;
+        for (Map.Entry<YearMonth, Long> entry : revisions.entrySet()) {
+            Slot slot = index.get(entry.getKey());
+            if (!blocks.containsKey(entry.getKey()) && slot != null && slot.revision == entry.getValue()) {
+                kept.put(entry.getKey(), slot);
+                liveBytes += (long) slot.rows * ROW_SIZE;
+            }
+        }
+        for (LedgerColumns columns : blocks.values()) {
+            liveBytes += (long) columns.size() * ROW_SIZE;
+        }
+
+        long start = end;
+        if (end - HEADER_SIZE > 2 * liveBytes + INITIAL_SIZE) {
+            // Mostly replaced blocks: read the kept months and write everything again from the top
+            for (Map.Entry<YearMonth, Slot> entry : kept.entrySet()) {
+                blocks.put(entry.getKey(), read(entry.getValue()));
+            }
+            kept.clear();
+            writeHeader(HEADER_SIZE, 0, 0, HEADER_SIZE); // empty until the new index is in place
+            map.force();
+            start = HEADER_SIZE;
+        }
+
+        TreeMap<YearMonth, Slot> updated = new TreeMap<>(kept);
+        long position = start;
+        for (Map.Entry<YearMonth, LedgerColumns> entry : blocks.entrySet()) {
+            Long revision = revisions.get(entry.getKey());
+            if (revision == null) continue; // no longer in the database
+            LedgerColumns columns = entry.getValue();
+            ensureCapacity(position + (long) columns.size() * ROW_SIZE);
+            write(position, columns);
+            updated.put(entry.getKey(), new Slot(revision, position, columns.size()));
+            position += (long) columns.size() * ROW_SIZE;
+        }
+
+        long indexOffset = position;
+        ensureCapacity(indexOffset + (long) updated.size() * INDEX_ENTRY_SIZE);
+        int i = 0;
+        for (Map.Entry<YearMonth, Slot> entry : updated.entrySet()) {
+            int at = Math.toIntExact(indexOffset + (long) i++ * INDEX_ENTRY_SIZE);
+            map.putInt(at, entry.getKey().getYear() * 12 + entry.getKey().getMonthValue() - 1);
+            map.putInt(at + 4, entry.getValue().rows);
+            map.putLong(at + 8, entry.getValue().revision);
+            map.putLong(at + 16, entry.getValue().offset);
+        }
+        long newEnd = indexOffset + (long) updated.size() * INDEX_ENTRY_SIZE;
+        map.force(); // blocks and index first, the header points to them only once they are on disk
+        writeHeader(indexOffset, updated.size(), indexChecksum(indexOffset, updated.size()), newEnd);
+        map.force();
+
+        index = updated;
+        written.values().removeIf(change -> change <= since);
+        syncedAt = System.currentTimeMillis();
+    }
+
+    // Number of months held
+    public synchronized int getMonthCount() {
+        return index.size();
+    }
+
+    // Time of the last successful sync (System.currentTimeMillis()), 0 if there was none yet
+    public long getSyncedAt() {
+        return syncedAt;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private LedgerColumns read(Slot slot) {
+        LedgerColumns columns = new LedgerColumns(slot.rows);
+        int days = Math.toIntExact(slot.offset);
+        int revenue = days + slot.rows * 4;
+        int expense = revenue + slot.rows * 8;
+        for (int r = 0; r < slot.rows; r++) {
+            columns.append(map.getInt(days + r * 4), map.getLong(revenue + r * 8), map.getLong(expense + r * 8));
+        }
+        return columns;
+    }
+
+    private void write(long offset, LedgerColumns columns) {
+        int rows = columns.size();
+        int days = Math.toIntExact(offset);
+        int revenue = days + rows * 4;
+        int expense = revenue + rows * 8;
+        for (int r = 0; r < rows; r++) {
+            map.putInt(days + r * 4, columns.getEpochDay(r));
+            map.putLong(revenue + r * 8, columns.getRevenueCents(r));
+            map.putLong(expense + r * 8, columns.getExpenseCents(r));
+        }
+    }
+
+    // Loads the index the header points to; false if it is damaged
+    private boolean readIndex() {
+        long indexOffset = map.getLong(INDEX_OFFSET);
+        int count = map.getInt(INDEX_COUNT);
+        long used = map.getLong(END_OFFSET);
+        if (count < 0 || indexOffset < HEADER_SIZE || used > map.capacity()
+                || indexOffset + (long) count * INDEX_ENTRY_SIZE != used
+                || map.getInt(INDEX_CRC) != indexChecksum(indexOffset, count)) {
+            return false;
+        }
+        TreeMap<YearMonth, Slot> loaded = new TreeMap<>();
+        for (int i = 0; i < count; i++) {
+            int at = Math.toIntExact(indexOffset + (long) i * INDEX_ENTRY_SIZE);
+            int month = map.getInt(at);
+            Slot slot = new Slot(map.getLong(at + 8), map.getLong(at + 16), map.getInt(at + 4));
+            if (slot.rows < 0 || slot.offset < HEADER_SIZE || slot.offset + (long) slot.rows * ROW_SIZE > indexOffset) {
+                return false;
+            }
+            loaded.put(YearMonth.of(month / 12, month % 12 + 1), slot);
+        }
+        index = loaded;
+        end = used;
+        return true;
+    }
+
+    private void writeHeader(long indexOffset, int count, int crc, long used) {
+        map.putLong(INDEX_OFFSET, indexOffset);
+        map.putInt(INDEX_COUNT, count);
+        map.putInt(INDEX_CRC, crc);
+        map.putLong(END_OFFSET, used);
+        end = used;
+    }
+
+    private int indexChecksum(long indexOffset, int count) {
+        CRC32 crc = new CRC32();
+        int from = Math.toIntExact(indexOffset);
+        for (int i = 0; i < count * INDEX_ENTRY_SIZE; i++) {
+            crc.update(map.get(from + i));
+        }
+        return (int) crc.getValue();
+    }
+
+    private void ensureCapacity(long size) throws IOException {
+        if (size > map.capacity()) {
+            map(Math.max(size, (long) map.capacity() * 2));
+        }
+    }
+
+    private void map(long size) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        map.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
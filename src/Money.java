@@ -0,0 +1,73 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+// Money is carried as long cents everywhere (model, aggregation, JDBC binding); sums are
+// exact and need no allocation. BigDecimal only appears where text or DECIMAL columns meet
+// the cents: parsing user input, formatting and the JDBC driver boundary.
+public final class Money {
+
+    // Largest amount a DECIMAL(10,2) column holds: 99,999,999.99
+    public static final long MAX_CENTS = 9_999_999_999L;
+
+    private Money() {
+    }
+
+    // Parses "1234.5" or "1234,50" (no thousands separators) into cents; more than two decimals
+    // or more than a DECIMAL(10,2) column holds is an error
+    public static long parse(String text) {
+        BigDecimal value = new BigDecimal(text.trim().replace(',', '.'));
+        long cents;
+        try {
+            cents = value.setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Invalid amount: " + text);
+        }
+        return requireInRange(cents);
+    }
+
+    // The cents if a DECIMAL(10,2) column can hold them, IllegalArgumentException otherwise
+    public static long requireInRange(long cents) {
+        if (cents > MAX_CENTS || cents < -MAX_CENTS) {
+            throw new IllegalArgumentException("Amount out of range (at most " + format(MAX_CENTS) + "): " + format(cents));
+        }
+        return cents;
+    }
+
+    // Cents of a DECIMAL value (rounded half-up to two decimals); null counts as 0
+    public static long toCents(BigDecimal value) {
+        if (value == null) return 0;
+        return value.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    // "1234.50" / "-0.05"; always two decimals, no grouping
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        StringBuilder sb = new StringBuilder(16);
+        if (cents < 0) sb.append('-');
+        sb.append(abs / 100).append('.');
+        if (fraction < 10) sb.append('0');
+        return sb.append(fraction).toString();
+    }
+
+    // Reads a DECIMAL column as cents
+    public static long getCents(ResultSet rs, int column) throws SQLException {
+        return toCents(rs.getBigDecimal(column));
+    }
+
+    public static long getCents(ResultSet rs, String column) throws SQLException {
+        return toCents(rs.getBigDecimal(column));
+    }
+
+    // Binds cents to a DECIMAL parameter without going through double
+    public static void setCents(PreparedStatement stmt, int index, long cents) throws SQLException {
+        stmt.setBigDecimal(index, toBigDecimal(cents));
+    }
+}
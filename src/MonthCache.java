@@ -0,0 +1,125 @@
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Read-through cache of whole months, so flipping back to a month already viewed needs no query.
+//
+// A month is kept as LedgerColumns (primitive arrays, not DailyEntry objects), and the
+// cache is bounded by the total number of rows; the least recently viewed months go
+// first. Writes made through DatabaseManager patch a cached month right after they
+// commit. Every write also bumps the month's version, and a load that raced with a write
+// is not stored, so the cache never serves data older than this process's last commit.
+// Entries expire after a TTL to pick up changes made elsewhere.
+public class MonthCache {
+
+    private static final class Cached {
+        final LedgerColumns columns; // never modified once cached, patches replace it
+        final long loadedAt;
+
+        Cached(LedgerColumns columns, long loadedAt) {
+            this.columns = columns;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final int maxRows;
+    private final long ttlMs;
+
+    private final LinkedHashMap<YearMonth, Cached> months = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<YearMonth, Long> versions = new HashMap<>();
+    private int rows;
+    private long hits;
+    private long misses;
+
+    public MonthCache(int maxRows, long ttlMs) {
+        this.maxRows = Math.max(0, maxRows);
+        this.ttlMs = ttlMs;
+    }
+
+    // Read-only view of the cached month, or null if it has to be loaded
+    public synchronized LedgerColumns get(YearMonth month) {
+        Cached data = months.get(month);
+        if (data != null && ttlMs > 0 && System.currentTimeMillis() - data.loadedAt > ttlMs) {
+            remove(month);
+            data = null;
+        }
+        if (data == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return data == null ? null : data.columns.readOnly();
+    }
+
+    // Call before querying a month; pass the result to put()
+    public synchronized long beginLoad(YearMonth month) {
+        return versions.getOrDefault(month, 0L);
+    }
+
+    // Stores a freshly loaded month unless it was written since beginLoad()
+    // (the columns must not be modified afterwards)
+    public synchronized void put(YearMonth month, LedgerColumns columns, long version) {
+        if (maxRows == 0 || columns.size() > maxRows) return;
+        if (versions.getOrDefault(month, 0L) != version) return; // raced with a write, may be stale
+        remove(month);
+        months.put(month, new Cached(columns, System.currentTimeMillis()));
+        rows += columns.size();
+        evictOverflow();
+    }
+
+    // Applies committed writes of one month (upserted or updated rows)
+    public synchronized void patch(YearMonth month, Collection<DailyEntry> written) {
+        versions.merge(month, 1L, Long::sum);
+        Cached data = months.get(month);
+        if (data == null) return;
+        LedgerColumns patched = data.columns.copy(); // readers may still hold the old columns
+        for (DailyEntry entry : written) {
+            patched.put(entry.getDate(), entry.getRevenueCents(), entry.getExpenseCents());
+        }
+        months.put(month, new Cached(patched, data.loadedAt));
+        rows += patched.size() - data.columns.size();
+        evictOverflow();
+    }
+
+    // Drops a month (e.g. after a write whose effect is not known)
+    public synchronized void invalidate(YearMonth month) {
+        versions.merge(month, 1L, Long::sum);
+        remove(month);
+    }
+
+    public synchronized void clear() {
+        for (YearMonth month : new ArrayList<>(months.keySet())) {
+            invalidate(month);
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Rows currently held
+    public synchronized int getRows() {
+        return rows;
+    }
+
+    private void remove(YearMonth month) {
+        Cached old = months.remove(month);
+        if (old != null) rows -= old.columns.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Cached> it = months.values().iterator();
+        while (rows > maxRows && it.hasNext()) {
+            rows -= it.next().columns.size();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.List;
+
+// Table model for the "All months" list: one row per month with its totals.
+//
+// Built from DatabaseManager.getMonthTotals(), so the whole list comes from one query; the
+// cell strings are formatted once when the model is created. The profit column is the same
+// as in DailyEntryTableModel, so BalanceCellRenderer colours it.
+public class MonthTotalsTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"Month", "Revenue (€)", "Expense (€)", "Profit (€)", "Days"};
+
+    private final List<MonthlySummary> months;
+    private final String[] cells;
+
+    public MonthTotalsTableModel(List<MonthlySummary> months, String[] monthNames) {
+        this.months = new ArrayList<>(months);
+        this.cells = new String[this.months.size() * COLUMNS.length];
+        for (int row = 0; row < this.months.size(); row++) {
+            MonthlySummary summary = this.months.get(row);
+            int cell = row * COLUMNS.length;
+            cells[cell] = monthNames[summary.getMonth().getMonthValue() - 1] + " " + summary.getMonth().getYear();
+            cells[cell + 1] = Money.format(summary.getTotalRevenueCents());
+            cells[cell + 2] = Money.format(summary.getTotalExpenseCents());
+            cells[cell + 3] = Money.format(summary.getTotalProfitCents());
+            cells[cell + 4] = Integer.toString(summary.getDayCount());
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return months.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return cells[row * COLUMNS.length + column];
+    }
+
+    // The month's totals
+    public MonthlySummary getMonth(int row) {
+        return months.get(row);
+    }
+
+    // Profit of a row in cents for the renderer's colouring
+    public long getProfitCents(int row) {
+        return months.get(row).getTotalProfitCents();
+    }
+}
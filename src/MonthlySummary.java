@@ -1,21 +1,90 @@
 import java.time.YearMonth;
 
+// Totals of one month plus the balance carried over from all earlier months.
+// Amounts are in cents, so summaries built here compare exactly against the database.
 public class MonthlySummary {
 
     private YearMonth month;
-    private double totalRevenue;
-    private double totalExpense;
-    private double totalProfit;
-    private double carryOver;
+    private long totalRevenueCents;
+    private long totalExpenseCents;
+    private int dayCount;
+    private long carryOverCents;
 
-    public MonthlySummary(YearMonth month, double carryOver) {
+    public MonthlySummary(YearMonth month, long carryOverCents) {
         this.month = month;
-        this.carryOver = carryOver;
+        this.carryOverCents = carryOverCents;
+    }
+
+    public MonthlySummary(YearMonth month, long totalRevenueCents, long totalExpenseCents, int dayCount, long carryOverCents) {
+        this.month = month;
+        this.totalRevenueCents = totalRevenueCents;
+        this.totalExpenseCents = totalExpenseCents;
+        this.dayCount = dayCount;
+        this.carryOverCents = carryOverCents;
     }
 
     public void addDailyEntry(DailyEntry entry) {
-        totalRevenue += entry.getRevenue();
-        totalExpense += entry.getExpense();
-        totalProfit = totalRevenue - totalExpense + carryOver;
+        totalRevenueCents += entry.getRevenueCents();
+        totalExpenseCents += entry.getExpenseCents();
+        dayCount++;
+    }
+
+    // Adds all rows of the columns (e.g. a month from the cache)
+    public void addColumns(LedgerColumns columns) {
+        totalRevenueCents += columns.sumRevenueCents();
+        totalExpenseCents += columns.sumExpenseCents();
+        dayCount += columns.size();
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public long getTotalRevenueCents() {
+        return totalRevenueCents;
+    }
+
+    public long getTotalExpenseCents() {
+        return totalExpenseCents;
+    }
+
+    // Profit of this month only
+    public long getTotalProfitCents() {
+        return totalRevenueCents - totalExpenseCents;
+    }
+
+    // Number of days with an entry
+    public int getDayCount() {
+        return dayCount;
+    }
+
+    // Cumulative profit of all months before this one
+    public long getCarryOverCents() {
+        return carryOverCents;
+    }
+
+    // Cumulative profit up to and including this month
+    public long getClosingBalanceCents() {
+        return carryOverCents + getTotalProfitCents();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MonthlySummary)) return false;
+        MonthlySummary other = (MonthlySummary) o;
+        return month.equals(other.month) && totalRevenueCents == other.totalRevenueCents
+                && totalExpenseCents == other.totalExpenseCents && dayCount == other.dayCount
+                && carryOverCents == other.carryOverCents;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = month.hashCode();
+        result = 31 * result + Long.hashCode(totalRevenueCents);
+        result = 31 * result + Long.hashCode(totalExpenseCents);
+        result = 31 * result + dayCount;
+        result = 31 * result + Long.hashCode(carryOverCents);
+        return result;
     }
 }
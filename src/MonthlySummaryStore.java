@@ -0,0 +1,318 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// SQL helpers for the materialized "monthly_summary" table.
+//
+// One row per month with revenue, expense, profit, day count and carry_over, the
+// cumulative profit of all earlier months. Write paths call refreshMonth() inside their
+// own transaction: the month's totals are recomputed from its (at most 31) rows and the
+// profit delta is added to carry_over of every later month, so reading a month's totals
+// or the running balance is a single primary-key lookup. Every change also gives the month a
+// new revision from the one-row "monthly_summary_seq" table (never handed out twice), which
+// the local snapshot uses to find the months it has to fetch again.
+public class MonthlySummaryStore {
+
+    public static final String TABLE = "monthly_summary";
+    public static final String SEQUENCE_TABLE = "monthly_summary_seq";
+
+    private MonthlySummaryStore() {
+    }
+
+    // Creates the table if needed; returns true if it did not exist before
+    public static boolean createTableIfMissing(Connection conn) throws SQLException {
+        String check = "SELECT 1 FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(check)) {
+            stmt.setString(1, TABLE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    addRevisionIfMissing(conn);
+                    createSequenceIfMissing(conn);
+                    return false;
+                }
+            }
+        }
+
+        String sql = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                + "month_start DATE NOT NULL PRIMARY KEY, "
+                + "revenue DECIMAL(14,2) NOT NULL DEFAULT 0, "
+                + "expense DECIMAL(14,2) NOT NULL DEFAULT 0, "
+                + "profit DECIMAL(14,2) GENERATED ALWAYS AS (revenue - expense) STORED, "
+                + "day_count INT NOT NULL DEFAULT 0, "
+                + "carry_over DECIMAL(16,2) NOT NULL DEFAULT 0, "
+                + "revision BIGINT NOT NULL DEFAULT 0"
+                + ")";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+        createSequenceIfMissing(conn);
+        return true;
+    }
+
+    // The revision counter, started above the revisions already in the summary table
+    private static void createSequenceIfMissing(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + SEQUENCE_TABLE + " ("
+                    + "id TINYINT NOT NULL PRIMARY KEY, "
+                    + "revision BIGINT NOT NULL"
+                    + ")");
+            stmt.execute("INSERT IGNORE INTO " + SEQUENCE_TABLE + " (id, revision) "
+                    + "SELECT 1, COALESCE(MAX(revision), 0) FROM " + TABLE);
+        }
+    }
+
+    // Tables created before revisions were tracked get the column (all months start at 0)
+    private static void addRevisionIfMissing(Connection conn) throws SQLException {
+        String check = "SELECT 1 FROM INFORMATION_SCHEMA.COLUMNS WHERE TABLE_SCHEMA = DATABASE() "
+                + "AND TABLE_NAME = ? AND COLUMN_NAME = 'revision'";
+        try (PreparedStatement stmt = conn.prepareStatement(check)) {
+            stmt.setString(1, TABLE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) return;
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + TABLE + " ADD COLUMN revision BIGINT NOT NULL DEFAULT 0");
+        }
+    }
+
+    // Next revision from the counter row. Its row lock is held until the caller commits, so
+    // two writers never get the same number and summary writers take their turns (see
+    // refreshMonth); LAST_INSERT_ID(expr) hands the new value back without a second read.
+    private static long nextRevision(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "UPDATE " + SEQUENCE_TABLE + " SET revision = LAST_INSERT_ID(revision + 1) WHERE id = 1")) {
+            if (stmt.executeUpdate() != 1) {
+                throw new SQLException("Revision counter row missing in " + SEQUENCE_TABLE);
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT LAST_INSERT_ID()");
+             ResultSet rs = stmt.executeQuery()) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    // Recomputes one month from its rows in storageTable and pushes the profit change forward.
+    // Must run in the same transaction as the write that changed the month.
+    public static void refreshMonth(Connection conn, YearMonth month, String storageTable) throws SQLException {
+        Date monthStart = Date.valueOf(month.atDay(1));
+
+        // Taking the revision first locks the counter row, so summary writers run one after the
+        // other. Otherwise two writers of a month without a row both hold the gap lock of the
+        // FOR UPDATE below and deadlock on their INSERTs, and writers of different months lock
+        // each other's rows in opposite order through the carry-over.
+        long revision = nextRevision(conn);
+
+        // Current summary row, locked until the caller commits
+        boolean exists = false;
+        long oldProfit = 0;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT profit FROM " + TABLE + " WHERE month_start = ? FOR UPDATE")) {
+            stmt.setDate(1, monthStart);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    exists = true;
+                    oldProfit = Money.getCents(rs, 1);
+                }
+            }
+        }
+
+        // Fresh totals of the month
+        long revenue;
+        long expense;
+        int days;
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT COALESCE(SUM(revenue), 0), COALESCE(SUM(expense), 0), COUNT(*) FROM " + storageTable
+                        + " WHERE entry_date BETWEEN ? AND ?")) {
+            stmt.setDate(1, monthStart);
+            stmt.setDate(2, Date.valueOf(month.atEndOfMonth()));
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                revenue = Money.getCents(rs, 1);
+                expense = Money.getCents(rs, 2);
+                days = rs.getInt(3);
+            }
+        }
+
+        long delta = revenue - expense - oldProfit;
+
+        if (exists) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE " + TABLE + " SET revenue = ?, expense = ?, day_count = ?, revision = ? WHERE month_start = ?")) {
+                Money.setCents(stmt, 1, revenue);
+                Money.setCents(stmt, 2, expense);
+                stmt.setInt(3, days);
+                stmt.setLong(4, revision);
+                stmt.setDate(5, monthStart);
+                stmt.executeUpdate();
+            }
+        } else {
+            // A new month starts from the closing balance of the month before it
+            long carryOver = 0;
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "SELECT carry_over + profit FROM " + TABLE + " WHERE month_start < ? "
+                            + "ORDER BY month_start DESC LIMIT 1 FOR UPDATE")) {
+                stmt.setDate(1, monthStart);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) carryOver = Money.getCents(rs, 1);
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO " + TABLE + " (month_start, revenue, expense, day_count, carry_over, revision) VALUES (?, ?, ?, ?, ?, ?)")) {
+                stmt.setDate(1, monthStart);
+                Money.setCents(stmt, 2, revenue);
+                Money.setCents(stmt, 3, expense);
+                stmt.setInt(4, days);
+                Money.setCents(stmt, 5, carryOver);
+                stmt.setLong(6, revision);
+                stmt.executeUpdate();
+            }
+        }
+
+        // Every later month carries the change forward
+        if (delta != 0) {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE " + TABLE + " SET carry_over = carry_over + ? WHERE month_start > ?")) {
+                Money.setCents(stmt, 1, delta);
+                stmt.setDate(2, monthStart);
+                stmt.executeUpdate();
+            }
+        }
+    }
+
+    // Recomputes every row from raw data; monthTables maps each month to the table holding it
+    public static void rebuild(Connection conn, Map<YearMonth, String> monthTables) throws SQLException {
+        long revision = nextRevision(conn); // every month counts as changed
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM " + TABLE);
+        }
+
+        long carryOver = 0;
+        try (PreparedStatement insert = conn.prepareStatement(
+                "INSERT INTO " + TABLE + " (month_start, revenue, expense, day_count, carry_over, revision) VALUES (?, ?, ?, ?, ?, ?)")) {
+
+            for (Map.Entry<YearMonth, String> entry : monthTables.entrySet()) { // chronological
+                YearMonth month = entry.getKey();
+                long revenue;
+                long expense;
+                int days;
+                try (PreparedStatement stmt = conn.prepareStatement(
+                        "SELECT COALESCE(SUM(revenue), 0), COALESCE(SUM(expense), 0), COUNT(*) FROM " + entry.getValue()
+                                + " WHERE entry_date BETWEEN ? AND ?")) {
+                    stmt.setDate(1, Date.valueOf(month.atDay(1)));
+                    stmt.setDate(2, Date.valueOf(month.atEndOfMonth()));
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        rs.next();
+                        revenue = Money.getCents(rs, 1);
+                        expense = Money.getCents(rs, 2);
+                        days = rs.getInt(3);
+                    }
+                }
+
+                insert.setDate(1, Date.valueOf(month.atDay(1)));
+                Money.setCents(insert, 2, revenue);
+                Money.setCents(insert, 3, expense);
+                insert.setInt(4, days);
+                Money.setCents(insert, 5, carryOver);
+                insert.setLong(6, revision);
+                insert.addBatch();
+
+                carryOver += revenue - expense;
+            }
+            insert.executeBatch();
+        }
+    }
+
+    // Summary of one month, or null if the month has none
+    public static MonthlySummary find(Connection conn, YearMonth month) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(selectSql() + " WHERE month_start = ?")) {
+            stmt.setDate(1, Date.valueOf(month.atDay(1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? read(rs) : null;
+            }
+        }
+    }
+
+    // Latest month, whose closing balance is the running balance since opening; null if empty
+    public static MonthlySummary findLatest(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(selectSql() + " ORDER BY month_start DESC LIMIT 1");
+             ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? read(rs) : null;
+        }
+    }
+
+    // Latest month before `month`, whose closing balance carries over into it; null if none
+    public static MonthlySummary findLatestBefore(Connection conn, YearMonth month) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                selectSql() + " WHERE month_start < ? ORDER BY month_start DESC LIMIT 1")) {
+            stmt.setDate(1, Date.valueOf(month.atDay(1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? read(rs) : null;
+            }
+        }
+    }
+
+    // All months in chronological order
+    public static List<MonthlySummary> findAll(Connection conn) throws SQLException {
+        List<MonthlySummary> summaries = new ArrayList<>();
+        try (PreparedStatement stmt = conn.prepareStatement(selectSql() + " ORDER BY month_start ASC");
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                summaries.add(read(rs));
+            }
+        }
+        return summaries;
+    }
+
+    // Revision of every month before `before`, for syncing the local snapshot
+    public static Map<YearMonth, Long> findRevisions(Connection conn, YearMonth before) throws SQLException {
+        Map<YearMonth, Long> revisions = new TreeMap<>();
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "SELECT month_start, revision FROM " + TABLE + " WHERE month_start < ?")) {
+            stmt.setDate(1, Date.valueOf(before.atDay(1)));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    revisions.put(YearMonth.from(rs.getDate(1).toLocalDate()), rs.getLong(2));
+                }
+            }
+        }
+        return revisions;
+    }
+
+    private static String selectSql() {
+        return "SELECT month_start, revenue, expense, day_count, carry_over FROM " + TABLE;
+    }
+
+    private static MonthlySummary read(ResultSet rs) throws SQLException {
+        return new MonthlySummary(YearMonth.from(rs.getDate(1).toLocalDate()),
+                Money.getCents(rs, 2), Money.getCents(rs, 3), rs.getInt(4), Money.getCents(rs, 5));
+    }
+
+    // Command line: java -cp BalanceApp.jar MonthlySummaryStore --rebuild
+    public static void main(String[] args) {
+        if (args.length != 1 || !args[0].equals("--rebuild")) {
+            System.err.println("Usage: MonthlySummaryStore --rebuild");
+            System.exit(2);
+        }
+
+        DatabaseManager db = new DatabaseManager();
+        if (!db.rebuildMonthlySummaries()) {
+            System.exit(1);
+        }
+        for (MonthlySummary summary : db.getMonthlySummaries()) {
+            System.out.printf("%s  revenue %12s  expense %12s  profit %12s  days %2d  balance %14s%n",
+                    summary.getMonth(), Money.format(summary.getTotalRevenueCents()), Money.format(summary.getTotalExpenseCents()),
+                    Money.format(summary.getTotalProfitCents()), summary.getDayCount(), Money.format(summary.getClosingBalanceCents()));
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,80 @@
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram and counters of one DatabaseManager operation
+public class OperationMetrics implements OperationMetricsMXBean {
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    void addError() {
+        errors.increment();
+    }
+
+    void addRowsRead(long rows) {
+        rowsRead.add(rows);
+    }
+
+    void addRowsWritten(long rows) {
+        rowsWritten.add(rows);
+    }
+
+    @Override
+    public long getCalls() {
+        return latency.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    @Override
+    public long getRowsWritten() {
+        return rowsWritten.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.getMeanMillis();
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.getPercentileMillis(0.50);
+    }
+
+    @Override
+    public double getP95Millis() {
+        return latency.getPercentileMillis(0.95);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.getPercentileMillis(0.99);
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.getMaxMillis();
+    }
+}
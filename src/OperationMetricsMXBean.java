@@ -0,0 +1,21 @@
+// JMX view of one DatabaseManager operation (balanceapp:type=DatabaseOperation,name=...)
+public interface OperationMetricsMXBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRowsRead();
+
+    long getRowsWritten();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+}
@@ -0,0 +1,36 @@
+import java.sql.SQLException;
+
+// Times one call of a DatabaseManager operation:
+//
+//     OperationTimer timer = DatabaseMetrics.start("getEntries");
+//     try { ...; timer.rowsRead(n); } catch (SQLException e) { timer.failed(e); ... } finally { timer.stop(); }
+public final class OperationTimer {
+
+    private final OperationMetrics metrics;
+    private final long startNanos = System.nanoTime();
+    private boolean stopped;
+
+    OperationTimer(OperationMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public void rowsRead(long rows) {
+        metrics.addRowsRead(rows);
+    }
+
+    public void rowsWritten(long rows) {
+        metrics.addRowsWritten(rows);
+    }
+
+    // Counts the error for the operation and its SQLState
+    public void failed(SQLException e) {
+        metrics.addError();
+        DatabaseMetrics.countSqlState(e);
+    }
+
+    public void stop() {
+        if (stopped) return;
+        stopped = true;
+        metrics.getLatency().recordNanos(System.nanoTime() - startNanos);
+    }
+}
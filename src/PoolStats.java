@@ -0,0 +1,100 @@
+// Point-in-time snapshot of the connection pool counters
+public class PoolStats {
+
+    private final int active;
+    private final int idle;
+    private final int total;
+    private final int maxSize;
+    private final int waiters;
+    private final long acquireCount;
+    private final long totalWaitMillis;
+    private final long maxWaitMillis;
+    private final long timeoutCount;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    public PoolStats(int active, int idle, int total, int maxSize, int waiters,
+                     long acquireCount, long totalWaitMillis, long maxWaitMillis, long timeoutCount,
+                     long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.active = active;
+        this.idle = idle;
+        this.total = total;
+        this.maxSize = maxSize;
+        this.waiters = waiters;
+        this.acquireCount = acquireCount;
+        this.totalWaitMillis = totalWaitMillis;
+        this.maxWaitMillis = maxWaitMillis;
+        this.timeoutCount = timeoutCount;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    public double getAverageWaitMillis() {
+        return acquireCount == 0 ? 0 : (double) totalWaitMillis / acquireCount;
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    // Prepared statements served from the per-connection cache
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    // Prepared statements that had to be prepared (first use, evicted or cache off)
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    public double getStatementCacheHitRatio() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d idle=%d total=%d/%d waiters=%d acquired=%d avgWait=%.2fms maxWait=%dms timeouts=%d"
+                        + " stmtHits=%d stmtMisses=%d stmtEvictions=%d",
+                active, idle, total, maxSize, waiters, acquireCount, getAverageWaitMillis(), maxWaitMillis, timeoutCount,
+                statementCacheHits, statementCacheMisses, statementCacheEvictions);
+    }
+}
@@ -0,0 +1,139 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// In-process view of which monthly tables exist, keyed by month.
+// Loaded once from INFORMATION_SCHEMA, updated when the app creates a table and
+// refreshed on a fixed interval (or on demand) to pick up changes made elsewhere.
+// In ledger mode a month "exists" when the ledger has a partition for it; the catalog
+// then keeps the usual "june_25" name so month-name based callers keep working.
+// After a failed load, lookups use what is there for FAILED_RETRY_MS before loading again,
+// so a database that is down does not cost every call a connection timeout.
+public class SchemaCatalog {
+
+    private static final long FAILED_RETRY_MS = 5_000;
+
+    private final long refreshIntervalMs;
+    private final boolean ledgerMode;
+
+    private volatile ConcurrentSkipListMap<YearMonth, String> tables = new ConcurrentSkipListMap<>();
+    private volatile long loadedAt; // 0 until the first successful load
+    private volatile long failedAt; // last failed load, 0 after a successful one
+
+    public SchemaCatalog(long refreshIntervalMs, boolean ledgerMode) {
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.ledgerMode = ledgerMode;
+    }
+
+    // True if the catalog knows a table for this month
+    public boolean contains(YearMonth month) {
+        ensureLoaded();
+        return tables.containsKey(month);
+    }
+
+    // True if a monthly table with exactly this name exists
+    public boolean containsTable(String tableName) {
+        YearMonth month = DatabaseManager.parseMonthlyTableName(tableName);
+        if (month == null) return false;
+        ensureLoaded();
+        return tableName.equals(tables.get(month));
+    }
+
+    // Name of the table holding this month, or null if there is none
+    public String getTableName(YearMonth month) {
+        ensureLoaded();
+        return tables.get(month);
+    }
+
+    // Existing months in chronological order
+    public NavigableSet<YearMonth> getMonths() {
+        ensureLoaded();
+        return Collections.unmodifiableNavigableSet(tables.navigableKeySet());
+    }
+
+    // Existing months between from and to (inclusive), in chronological order
+    public NavigableMap<YearMonth, String> getTables(YearMonth from, YearMonth to) {
+        ensureLoaded();
+        return Collections.unmodifiableNavigableMap(tables.subMap(from, true, to, true));
+    }
+
+    // Table names in chronological order
+    public List<String> getTableNames() {
+        ensureLoaded();
+        return new ArrayList<>(tables.values());
+    }
+
+    // Records a table the app has just created
+    public void markCreated(YearMonth month, String tableName) {
+        tables.put(month, tableName);
+    }
+
+    // Drops a month from the catalog (e.g. the table turned out to be missing)
+    public void forget(YearMonth month) {
+        tables.remove(month);
+    }
+
+    // Reloads the catalog from INFORMATION_SCHEMA
+    public void refresh() {
+        ConcurrentSkipListMap<YearMonth, String> loaded = new ConcurrentSkipListMap<>();
+
+        OperationTimer timer = DatabaseMetrics.start("refreshSchemaCatalog");
+        try (Connection conn = DatabaseManager.getConnection()) {
+            if (ledgerMode) {
+                for (YearMonth month : LedgerSchema.loadPartitionMonths(conn)) {
+                    loaded.put(month, DatabaseManager.getMonthlyTableName(month.atDay(1)));
+                }
+            } else {
+                String sql = "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = DATABASE()";
+                try (PreparedStatement stmt = conn.prepareStatement(sql);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        String tableName = rs.getString(1);
+                        YearMonth month = DatabaseManager.parseMonthlyTableName(tableName);
+                        if (month != null) {
+                            loaded.put(month, tableName);
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            timer.failed(e);
+            e.printStackTrace();
+            failedAt = System.currentTimeMillis();
+            return; // keep what we had, try again after FAILED_RETRY_MS
+        } finally {
+            timer.stop();
+        }
+
+        tables = loaded;
+        failedAt = 0;
+        loadedAt = System.currentTimeMillis();
+    }
+
+    public boolean isLoaded() {
+        return loadedAt != 0;
+    }
+
+    private void ensureLoaded() {
+        long last = loadedAt;
+        long now = System.currentTimeMillis();
+        boolean stale = last == 0
+                || (refreshIntervalMs > 0 && now - last > refreshIntervalMs);
+        if (stale && now - failedAt >= FAILED_RETRY_MS) {
+            synchronized (this) {
+                // nobody refreshed while we waited, and nobody just failed to
+                if (last == loadedAt && System.currentTimeMillis() - failedAt >= FAILED_RETRY_MS) {
+                    refresh();
+                }
+            }
+        }
+    }
+}
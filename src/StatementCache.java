@@ -0,0 +1,145 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Bounded LRU of open PreparedStatements for one physical connection.
+//
+// Keyed by SQL text, which already names the operation and the monthly table ("INSERT INTO
+// june_25 ..."), so the current month's statements stay prepared while older months age
+// out. Callers get a proxy: close() clears parameters and batch and hands the statement
+// back instead of closing it. A statement that is still in use (nested use of the same
+// SQL) is not shared; the second caller gets a plain, uncached statement.
+public class StatementCache {
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+
+    private final LinkedHashMap<String, Entry> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final class Entry {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted; // close for real once returned
+
+        Entry(PreparedStatement statement) {
+            this.statement = statement;
+        }
+    }
+
+    public StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    // Cached statement for the SQL, prepared on first use
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        Entry entry = statements.get(sql);
+        if (entry != null) {
+            if (entry.inUse) {
+                misses.increment();
+                return physical.prepareStatement(sql); // nested use, not cached
+            }
+            hits.increment();
+        } else {
+            misses.increment();
+            entry = new Entry(physical.prepareStatement(sql));
+            statements.put(sql, entry);
+            evictOverflow();
+        }
+        entry.inUse = true;
+        return lend(sql, entry);
+    }
+
+    // Closes every statement (the connection is about to be closed)
+    public synchronized void closeAll() {
+        for (Entry entry : statements.values()) {
+            closeQuietly(entry.statement);
+        }
+        statements.clear();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Entry>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            evictions.increment();
+            if (eldest.inUse) {
+                eldest.evicted = true;
+            } else {
+                closeQuietly(eldest.statement);
+            }
+        }
+    }
+
+    private synchronized void giveBack(String sql, Entry entry) {
+        entry.inUse = false;
+        try {
+            if (!entry.evicted) {
+                entry.statement.clearParameters();
+                entry.statement.clearBatch();
+                return;
+            }
+        } catch (SQLException e) {
+            statements.remove(sql, entry); // broken, prepare a fresh one next time
+        }
+        closeQuietly(entry.statement);
+    }
+
+    private PreparedStatement lend(String sql, Entry entry) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new InvocationHandler() {
+                    private boolean closed;
+
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        switch (method.getName()) {
+                            case "close":
+                                if (!closed) {
+                                    closed = true;
+                                    giveBack(sql, entry);
+                                }
+                                return null;
+                            case "isClosed":
+                                return closed;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "toString":
+                                return "CachedStatement[" + sql + "]";
+                            default:
+                                if (closed) throw new SQLException("Statement is closed");
+                                try {
+                                    return method.invoke(entry.statement, args);
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                        }
+                    }
+                });
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
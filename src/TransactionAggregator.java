@@ -0,0 +1,86 @@
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Collects individual transactions (e.g. POS line items) and rolls them up into daily entries.
+//
+// add() only appends to the month's TransactionBatch, which keeps the per-day totals as it
+// goes. Once DB_TRANSACTION_BATCH_SIZE transactions are waiting (or on flush()/close()) each
+// month is written in one database transaction: its line items go into transaction_items and
+// its per-day totals are added to the daily entries (see DatabaseManager.writeTransactions).
+// Thread-safe; several producers can share one aggregator.
+public class TransactionAggregator implements AutoCloseable {
+
+    private final DatabaseManager db;
+    private final int batchSize;
+
+    private final TreeMap<YearMonth, TransactionBatch> pending = new TreeMap<>();
+    private TransactionBatch current; // batch of the last add(), transactions mostly come in date order
+    private int currentFirstDay;
+    private int currentLastDay;
+    private int pendingCount;
+    private long written;
+
+    public TransactionAggregator(DatabaseManager db, int batchSize) {
+        this.db = db;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    // Aggregator with the batch size from db.properties
+    public static TransactionAggregator fromConfig(DatabaseManager db) {
+        return new TransactionAggregator(db, DatabaseManager.getIntProperty("DB_TRANSACTION_BATCH_SIZE", 10_000));
+    }
+
+    public void add(LocalDate date, long revenueCents, long expenseCents, String reference) throws SQLException {
+        add(Math.toIntExact(date.toEpochDay()), revenueCents, expenseCents, reference);
+    }
+
+    // Adds one transaction; writes the waiting ones when the batch is full
+    public synchronized void add(int epochDay, long revenueCents, long expenseCents, String reference)
+            throws SQLException {
+        if (current == null || epochDay < currentFirstDay || epochDay > currentLastDay) {
+            YearMonth month = YearMonth.from(LocalDate.ofEpochDay(epochDay));
+            current = pending.get(month);
+            if (current == null) {
+                current = new TransactionBatch(month, Math.min(batchSize, 1024));
+                pending.put(month, current);
+            }
+            currentFirstDay = Math.toIntExact(month.atDay(1).toEpochDay());
+            currentLastDay = Math.toIntExact(month.atEndOfMonth().toEpochDay());
+        }
+        current.add(epochDay, revenueCents, expenseCents, reference);
+        if (++pendingCount >= batchSize) flush();
+    }
+
+    // Writes everything waiting, oldest month first. A month that fails stays buffered
+    // (with the ones after it) and the error is thrown; flush() can be called again.
+    public synchronized void flush() throws SQLException {
+        current = null;
+        Iterator<Map.Entry<YearMonth, TransactionBatch>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+            TransactionBatch batch = it.next().getValue();
+            db.writeTransactions(batch);
+            it.remove();
+            pendingCount -= batch.size();
+            written += batch.size();
+        }
+    }
+
+    // Transactions added but not written yet
+    public synchronized int getPendingCount() {
+        return pendingCount;
+    }
+
+    // Transactions written to the database so far
+    public synchronized long getWrittenCount() {
+        return written;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        flush();
+    }
+}
@@ -0,0 +1,107 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+// Transactions of one month waiting to be written, with their per-day totals.
+//
+// Line items are kept in primitive columns (epoch day, revenue and expense in cents, an
+// optional reference) and every add() also rolls the amounts into the day's slot, so the
+// totals are ready without a second pass. Not thread-safe; TransactionAggregator guards it.
+public class TransactionBatch {
+
+    private final YearMonth month;
+    private final int firstDay; // epoch day of the 1st
+
+    private int[] days;
+    private long[] revenue;
+    private long[] expense;
+    private String[] references;
+    private int size;
+
+    private final long[] dayRevenue = new long[31];
+    private final long[] dayExpense = new long[31];
+    private final int[] dayItems = new int[31];
+
+    public TransactionBatch(YearMonth month, int capacity) {
+        this.month = month;
+        this.firstDay = Math.toIntExact(month.atDay(1).toEpochDay());
+        int initial = Math.max(16, capacity);
+        days = new int[initial];
+        revenue = new long[initial];
+        expense = new long[initial];
+        references = new String[initial];
+    }
+
+    // Adds one transaction of this month (reference may be null). IllegalArgumentException,
+    // and nothing added, if the amounts would take the day's total out of DECIMAL(10,2).
+    public void add(int epochDay, long revenueCents, long expenseCents, String reference) {
+        int slot = epochDay - firstDay;
+        if (slot < 0 || slot >= month.lengthOfMonth()) {
+            throw new IllegalArgumentException(LocalDate.ofEpochDay(epochDay) + " is not in " + month);
+        }
+        Money.requireInRange(revenueCents);
+        Money.requireInRange(expenseCents);
+        try {
+            Money.requireInRange(dayRevenue[slot] + revenueCents);
+            Money.requireInRange(dayExpense[slot] + expenseCents);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Total of " + LocalDate.ofEpochDay(epochDay) + " out of range: " + e.getMessage());
+        }
+        if (size == days.length) grow();
+        days[size] = epochDay;
+        revenue[size] = revenueCents;
+        expense[size] = expenseCents;
+        references[size] = reference;
+        size++;
+
+        dayRevenue[slot] += revenueCents;
+        dayExpense[slot] += expenseCents;
+        dayItems[slot]++;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    // Number of transactions
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getEpochDay(int index) {
+        return days[index];
+    }
+
+    public long getRevenueCents(int index) {
+        return revenue[index];
+    }
+
+    public long getExpenseCents(int index) {
+        return expense[index];
+    }
+
+    public String getReference(int index) {
+        return references[index];
+    }
+
+    // Per-day totals of the batch in date order, only days that have transactions
+    public LedgerColumns getDailyTotals() {
+        LedgerColumns totals = new LedgerColumns(31);
+        for (int slot = 0; slot < month.lengthOfMonth(); slot++) {
+            if (dayItems[slot] > 0) totals.append(firstDay + slot, dayRevenue[slot], dayExpense[slot]);
+        }
+        return totals;
+    }
+
+    private void grow() {
+        int capacity = days.length * 2;
+        days = Arrays.copyOf(days, capacity);
+        revenue = Arrays.copyOf(revenue, capacity);
+        expense = Arrays.copyOf(expense, capacity);
+        references = Arrays.copyOf(references, capacity);
+    }
+}
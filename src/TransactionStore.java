@@ -0,0 +1,58 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+// SQL helpers for the "transaction_items" table: the individual transactions (e.g. POS line
+// items) behind the daily entries of days that are fed by TransactionAggregator.
+//
+// Rows are only ever inserted, in the same transaction that adds their per-day totals to the
+// month's daily entries. The items of a day add up to what transactions added to it, which is
+// the day's amount only as long as nothing else writes that day: a manual entry, an import or
+// a journal replay replaces the amounts and the items are left as they were.
+public class TransactionStore {
+
+    public static final String TABLE = "transaction_items";
+    public static final int MAX_REFERENCE_LENGTH = 64;
+
+    private TransactionStore() {
+    }
+
+    public static void createTableIfMissing(Connection conn) throws SQLException {
+        String sql = "CREATE TABLE IF NOT EXISTS " + TABLE + " ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "entry_date DATE NOT NULL, "
+                + "revenue DECIMAL(10,2) NOT NULL DEFAULT 0, "
+                + "expense DECIMAL(10,2) NOT NULL DEFAULT 0, "
+                + "reference VARCHAR(" + MAX_REFERENCE_LENGTH + ") NULL, "
+                + "KEY idx_" + TABLE + "_date (entry_date)"
+                + ")";
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    // Inserts the batch's line items as JDBC batches of batchSize rows (part of the caller's transaction)
+    public static void insert(Connection conn, TransactionBatch batch, int batchSize) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO " + TABLE + " (entry_date, revenue, expense, reference) VALUES (?, ?, ?, ?)")) {
+            Date date = null;
+            int dateDay = Integer.MIN_VALUE;
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.getEpochDay(i) != dateDay) { // items mostly come day by day
+                    dateDay = batch.getEpochDay(i);
+                    date = Date.valueOf(LocalDate.ofEpochDay(dateDay));
+                }
+                stmt.setDate(1, date);
+                Money.setCents(stmt, 2, batch.getRevenueCents(i));
+                Money.setCents(stmt, 3, batch.getExpenseCents(i));
+                stmt.setString(4, batch.getReference(i));
+                stmt.addBatch();
+                if ((i + 1) % batchSize == 0) stmt.executeBatch();
+            }
+            if (batch.size() % batchSize != 0) stmt.executeBatch();
+        }
+    }
+}
@@ -1,9 +1,13 @@
 import javax.swing.*;
 import com.formdev.flatlaf.FlatLightLaf;
 import java.awt.*;
+import java.util.function.Consumer;
 
 public class main {
 
+    private static final Color BLUE = new Color(66, 133, 244); // modern blue
+    private static final Color DARK_BLUE = new Color(48, 108, 196);
+
     public static void main(String[] args) {
         // Apply FlatLaf theme
         try {
@@ -12,45 +16,34 @@ public class main {
             System.err.println("Failed to initialize FlatLaf.");
         }
 
-        BalanceAppGUI balanceGUI = new BalanceAppGUI();
-
-        while (true) {
-            String username = balanceGUI.showLoginFrame();
-
-            if (username == null) {
-                // User pressed cancel or login failed
-                System.exit(0);
-            }
+        // Database connections, schema and the current month load while the login screen is open
+        AsyncDatabaseManager.warmUpInBackground();
 
-            boolean logout = showMainMenu(balanceGUI, username);
-
-            if (!logout) {
-                System.exit(0);
-            }
-        }
+        // From here on everything happens in event handlers on the EDT; the main thread is done
+        SwingUtilities.invokeLater(main::start);
     }
 
-    // Show login loop until success or exit
-    private static String showLoginLoop(BalanceAppGUI balanceGUI) {
-        String username = null;
-
-        while (username == null) {
-            username = balanceGUI.showLoginFrame(); // now returns String
-
-            if (username == null) {
-                return null; // Exit app if user chooses No
-            }
-        }
-
-        return username; // successful login
+    // One window for the whole session: login, menu and the views are screens of the shell
+    private static void start() {
+        AppShell shell = new AppShell("Balance App");
+        BalanceAppGUI balanceGUI = new BalanceAppGUI(shell);
+
+        JLabel userLabel = new JLabel("", SwingConstants.CENTER);
+        Consumer<String> onLogin = username -> {
+            userLabel.setText("Logged in as: " + username);
+            shell.show(AppShell.MENU);
+        };
+        // Logout goes back to the login screen, which calls onLogin again
+        shell.register(AppShell.MENU, "Balance App Menu",
+                () -> createMainMenu(balanceGUI, userLabel, () -> balanceGUI.showLogin(onLogin)));
+
+        balanceGUI.showLogin(onLogin);
+        SwingUtilities.invokeLater(DatabaseMetrics::recordFirstScreen); // after the window's first events
     }
 
-    // Show the main menu
-    private static boolean showMainMenu(BalanceAppGUI balanceGUI, String username) {
-        JFrame frame = new JFrame("Balance App Menu");
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
-        frame.setUndecorated(false);
+    // The main menu, built once
+    private static JComponent createMainMenu(BalanceAppGUI balanceGUI, JLabel userLabel, Runnable onLogout) {
+        JPanel screen = new JPanel(new BorderLayout());
 
         JPanel panel = new JPanel(new GridLayout(0, 1, 20, 20));
         panel.setBorder(BorderFactory.createEmptyBorder(50, 200, 50, 200));
@@ -59,21 +52,18 @@ public class main {
         userPanel.setBackground(new Color(240, 240, 240)); // light gray background
         userPanel.setBorder(BorderFactory.createEmptyBorder(15, 10, 15, 10));
 
-        JLabel userLabel = new JLabel("Logged in as: " + username, SwingConstants.CENTER);
         userLabel.setFont(new Font("Segoe UI", Font.BOLD, 20));
-        userLabel.setForeground(new Color(66, 133, 244)); // modern blue
+        userLabel.setForeground(BLUE);
         userPanel.add(userLabel, BorderLayout.CENTER);
 
         // Add the panel to the top of the main layout
-        frame.add(userPanel, BorderLayout.NORTH);
+        screen.add(userPanel, BorderLayout.NORTH);
 
-        ////////////////////////////
-        JPanel panel2 = new JPanel(new GridLayout(0, 1, 20, 20));
         panel.setBorder(BorderFactory.createEmptyBorder(50, 400, 50, 400));
         panel.setBackground(Color.WHITE);
 
 
-        String[] options = {"Insert daily", "SUM for month", "Show balance", "Update", "All months", "Logout"};
+        String[] options = {"Insert daily", "SUM for month", "Show balance", "Balance range", "Analytics", "Update", "All months", "Import CSV", "Logout"};
 
         for (String option : options) {
             JButton button = new JButton(option);
@@ -82,7 +72,7 @@ public class main {
             button.setFont(new Font("Segoe UI", Font.BOLD, 18));
             button.setPreferredSize(new Dimension(250, 60));
             button.setFocusPainted(false);
-            button.setBackground(new Color(66, 133, 244)); // Blue
+            button.setBackground(BLUE);
             button.setForeground(Color.WHITE);
             button.setBorder(BorderFactory.createEmptyBorder(10, 20, 10, 20));
             button.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
@@ -92,20 +82,16 @@ public class main {
             button.addMouseListener(new java.awt.event.MouseAdapter() {
                 @Override
                 public void mouseEntered(java.awt.event.MouseEvent evt) {
-                    button.setBackground(new Color(48, 108, 196)); // darker blue
+                    button.setBackground(DARK_BLUE);
                 }
 
                 @Override
                 public void mouseExited(java.awt.event.MouseEvent evt) {
-                    button.setBackground(new Color(66, 133, 244)); // normal blue
+                    button.setBackground(BLUE);
                 }
             });
 
 
-            final boolean[] logout = {false};
-
-            button.setFocusPainted(false);
-
             button.addActionListener(e -> {
                 switch (option) {
                     case "Insert daily":
@@ -117,15 +103,23 @@ public class main {
                     case "Show balance":
                         balanceGUI.showMonthlyBalanceTable();
                         break;
+                    case "Balance range":
+                        balanceGUI.showBalanceRange();
+                        break;
+                    case "Analytics":
+                        balanceGUI.showAnalytics();
+                        break;
                     case "Update":
                         balanceGUI.showUpdateDailyEntryDialog();
                         break;
                     case "All months":
                         balanceGUI.showAvailableMonthsPanel();
                         break;
+                    case "Import CSV":
+                        balanceGUI.showImportCsvDialog();
+                        break;
                     case "Logout":
-                        logout[0] = true;
-                        frame.dispose();
+                        onLogout.run();
                         break;
                 }
             });
@@ -133,16 +127,7 @@ public class main {
             panel.add(button);
         }
 
-        frame.add(panel, BorderLayout.CENTER);
-        frame.setVisible(true);
-
-        while (frame.isDisplayable()) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException ignored) {}
-        }
-
-        return true;
-
+        screen.add(panel, BorderLayout.CENTER);
+        return screen;
     }
 }